@@ -0,0 +1,141 @@
+package coolalias.skillsmod.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+import net.minecraft.util.DamageSource;
+import net.minecraft.util.MovingObjectPosition;
+import net.minecraft.world.World;
+import coolalias.skillsmod.CommonProxy;
+import coolalias.skillsmod.SkillInfo;
+import coolalias.skillsmod.SkillsHandler;
+import coolalias.skillsmod.SkillsMod;
+import coolalias.skillsmod.entity.EntityCustomArrow;
+import coolalias.skillsmod.skills.SkillActive;
+import coolalias.skillsmod.skills.SkillAttribute;
+import coolalias.skillsmod.skills.SkillBase;
+import coolalias.skillsmod.skills.SkillBase.AttributeCode;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Allocation regression check for the skill hot paths. Each path is warmed up so that it is
+ * compiled, then run many times while the current thread's allocated bytes are measured (see
+ * Allocations); the average bytes per operation must not exceed the path's budget.
+ * 
+ * Prints one line per path and exits with status 1 if any budget is exceeded (or 2 if the JVM
+ * can't measure allocations), so it can be run as a build or pre-commit check.
+ * 
+ * Budgets are the current, allocation-free state of each path, except server-side addXp, which
+ * still encodes an attribute update packet per call.
+ *
+ */
+public class AllocationBudgets
+{
+	private static final int WARMUP = 50000, ITERATIONS = 200000;
+	
+	/** Ticks the world every this many arrow checks, so that the Vec3 pool is cleared as on a server */
+	private static final int CHECKS_PER_TICK = 100;
+	
+	/** A single operation to measure */
+	private static abstract class Path
+	{
+		final String name;
+		final long budget;
+		
+		Path(String name, long budget) {
+			this.name = name;
+			this.budget = budget;
+		}
+		
+		abstract void run() throws Throwable;
+	}
+	
+	/** Arrow exposing checkForImpact */
+	private static class CheckedArrow extends EntityCustomArrow
+	{
+		CheckedArrow(World world, double x, double y, double z) { super(world, x, y, z); }
+		
+		MovingObjectPosition check() { return checkForImpact(); }
+	}
+	
+	public static void main(String[] args) throws Throwable
+	{
+		if (!Allocations.isSupported()) {
+			System.out.println("Thread allocation measurement is not supported by this JVM");
+			System.exit(2);
+		}
+		if (SkillsMod.proxy == null) { SkillsMod.proxy = new CommonProxy(); }
+		
+		final StubWorld world = StubWorld.create(false, 63);
+		final StubPlayer player = StubPlayer.create(world, "budget");
+		final SkillInfo info = SkillInfo.get(player);
+		final SkillBase agility = SkillBase.skillsList[AttributeCode.AGI.ordinal()];
+		final long xp = SkillAttribute.toXpUnits(SkillsHandler.XP_LOW);
+		final SkillActive skill = (SkillActive) SkillBase.fireBlast.newInstance();
+		
+		final SkillsHandler handler = new SkillsHandler();
+		Method method = SkillsHandler.class.getDeclaredMethod("getXpType", DamageSource.class);
+		method.setAccessible(true);
+		final MethodHandle getXpType = MethodHandles.lookup().unreflect(method);
+		final DamageSource fall = DamageSource.fall;
+		
+		// a few targets nearby so that the broadphase has candidates, but none in the arrow's path
+		for (int i = 0; i < 8; ++i) { world.addEntity(new StubTarget(world, 3.5D + i, 63.0D, 3.5D)); }
+		final CheckedArrow arrow = new CheckedArrow(world, 0.5D, 70.0D, 0.5D);
+		arrow.motionX = 0.0D;
+		arrow.motionY = 0.5D;
+		arrow.motionZ = -1.5D;
+		world.addEntity(arrow);
+		
+		Path[] paths = {
+			new Path("SkillInfo.getSkillLevel", 0L) {
+				@Override
+				void run() { info.getSkillLevel(agility); }
+			},
+			new Path("SkillInfo.addXp (server, no level up)", 512L) {
+				@Override
+				void run() {
+					info.addXpUnits(xp, (byte) AttributeCode.AGI.ordinal());
+					info.addXpUnits(-xp, (byte) AttributeCode.AGI.ordinal());
+				}
+			},
+			new Path("SkillActive.onUpdate", 0L) {
+				@Override
+				void run() {
+					if (!skill.isCooling()) { skill.setCooldown(player, Integer.MAX_VALUE); }
+					skill.onUpdate(player);
+				}
+			},
+			new Path("SkillsHandler.getXpType", 0L) {
+				@Override
+				void run() throws Throwable { int type = (int) getXpType.invokeExact(handler, fall); }
+			},
+			new Path("EntityCustomArrow.checkForImpact", 0L) {
+				private int checks;
+				
+				@Override
+				void run() {
+					if (++checks % CHECKS_PER_TICK == 0) { world.tick(); }
+					arrow.check();
+				}
+			}
+		};
+		
+		boolean failed = false;
+		for (Path path : paths)
+		{
+			for (int i = 0; i < WARMUP; ++i) { path.run(); }
+			long start = Allocations.current();
+			for (int i = 0; i < ITERATIONS; ++i) { path.run(); }
+			double perOp = (double) (Allocations.current() - start) / ITERATIONS;
+			boolean ok = perOp <= path.budget + 0.5D;
+			failed |= !ok;
+			System.out.println(String.format(Locale.ROOT, "%-40s %10.1f bytes/op (budget %d) %s", path.name, perOp, path.budget, ok ? "OK" : "FAILED"));
+		}
+		System.exit(failed ? 1 : 0);
+	}
+}
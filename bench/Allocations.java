@@ -0,0 +1,38 @@
+package coolalias.skillsmod.bench;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Reads the number of bytes allocated so far by the current thread, using the HotSpot
+ * extension com.sun.management.ThreadMXBean; returns -1 on JVMs without it.
+ *
+ */
+public final class Allocations
+{
+	private static final com.sun.management.ThreadMXBean bean;
+	
+	static {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean hotspot = null;
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			hotspot = (com.sun.management.ThreadMXBean) threads;
+			if (hotspot.isThreadAllocatedMemorySupported()) {
+				hotspot.setThreadAllocatedMemoryEnabled(true);
+			} else {
+				hotspot = null;
+			}
+		}
+		bean = hotspot;
+	}
+	
+	private Allocations() {}
+	
+	/** Returns true if allocations can be measured on this JVM */
+	public static boolean isSupported() { return bean != null; }
+	
+	/** Returns the total number of bytes allocated by the current thread so far, or -1 if not supported */
+	public static long current() { return bean != null ? bean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1L; }
+}
@@ -0,0 +1,224 @@
+package coolalias.skillsmod.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import net.minecraft.block.Block;
+import net.minecraft.client.multiplayer.ChunkProviderClient;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.ChunkPosition;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.EmptyChunk;
+import coolalias.skillsmod.skills.area.AreaShape;
+import coolalias.skillsmod.skills.area.BlockEditBatch;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Correctness check for the area-of-effect helpers used by skills:
+ * - AreaShape.cone rejecting half-angles outside (0, 90) degrees;
+ * - AreaShape.contains for random spheres, cones and lines against independent reference
+ *   formulas (distance, angle from the axis, distance from the axis), and that every point
+ *   inside a shape lies within its block bounds;
+ * - AreaShape.getTargets against a brute-force scan of every player in a stub world;
+ * - BlockEditBatch.apply against edits made one by one: final blocks (the last edit of a
+ *   position wins), the number of blocks changed, chunks that don't exist being skipped and
+ *   each neighbor of a changed block being notified exactly once.
+ *
+ * Usage: AreaEffectCheck [rounds, default 2000] [seed]
+ * Exits with status 1 on the first mismatch, so it can be run as a build or pre-commit check.
+ *
+ */
+public class AreaEffectCheck
+{
+	/** Points tested per shape */
+	private static final int POINTS = 200;
+
+	/** Players placed around the origin for getTargets */
+	private static final int PLAYERS = 200;
+
+	/** Points this close to a shape's surface are skipped, as rounding may put them either side */
+	private static final double EPSILON = 1.0E-7D;
+
+	private static long seed;
+
+	private static int round;
+
+	/** Chunk provider with real, empty chunks only where loadChunk has been called */
+	private static class Provider extends ChunkProviderClient
+	{
+		Provider(World world) { super(world); }
+
+		@Override
+		public boolean chunkExists(int x, int z) { return !(provideChunk(x, z) instanceof EmptyChunk); }
+	}
+
+	public static void main(String[] args)
+	{
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		Random rand = new Random(seed);
+		StubWorld world = StubWorld.create(false, 0);
+		List<StubPlayer> players = new ArrayList<StubPlayer>(PLAYERS);
+		for (int i = 0; i < PLAYERS; ++i) {
+			StubPlayer player = StubPlayer.create(world, "target" + i);
+			world.addEntity(player);
+			players.add(player);
+		}
+		List<EntityLivingBase> targets = new ArrayList<EntityLivingBase>();
+
+		float[] badAngles = { 0.0F, -10.0F, 90.0F, 135.0F, Float.NaN };
+		for (int i = 0; i < badAngles.length; ++i) {
+			try {
+				AreaShape.cone(0.0D, 64.0D, 0.0D, 1.0D, 0.0D, 0.0D, 8.0D, badAngles[i]);
+				fail("cone accepted a half-angle of " + badAngles[i]);
+			} catch (IllegalArgumentException expected) {}
+		}
+
+		for (round = 1; round <= rounds; ++round)
+		{
+			int type = rand.nextInt(3);
+			double x = rand.nextDouble() * 32.0D - 16.0D, y = rand.nextDouble() * 32.0D + 48.0D, z = rand.nextDouble() * 32.0D - 16.0D;
+			double dx = rand.nextGaussian(), dy = rand.nextGaussian(), dz = rand.nextGaussian();
+			double norm = Math.sqrt(dx * dx + dy * dy + dz * dz);
+			dx /= norm;
+			dy /= norm;
+			dz /= norm;
+			double size = 0.5D + rand.nextDouble() * 12.0D, radius = 0.25D + rand.nextDouble() * 4.0D;
+			float angle = 1.0F + rand.nextFloat() * 88.0F;
+			AreaShape shape = type == 0 ? AreaShape.sphere(x, y, z, size) : type == 1 ? AreaShape.cone(x, y, z, dx, dy, dz, size, angle) :
+				AreaShape.line(x, y, z, dx, dy, dz, size, radius);
+
+			for (int i = 0; i < POINTS; ++i)
+			{
+				double px = x + (rand.nextDouble() * 2.0D - 1.0D) * (size + radius + 1.0D);
+				double py = y + (rand.nextDouble() * 2.0D - 1.0D) * (size + radius + 1.0D);
+				double pz = z + (rand.nextDouble() * 2.0D - 1.0D) * (size + radius + 1.0D);
+				double margin = type == 0 ? sphereMargin(px - x, py - y, pz - z, size) : type == 1 ?
+					coneMargin(px - x, py - y, pz - z, dx, dy, dz, size, angle) : lineMargin(px - x, py - y, pz - z, dx, dy, dz, size, radius);
+				if (Math.abs(margin) < EPSILON) { continue; }
+				boolean inside = shape.contains(px, py, pz);
+				if (inside != margin > 0.0D) { fail(describe(type) + " contains(" + px + ", " + py + ", " + pz + ") was " + inside); }
+				int bx = MathHelper.floor_double(px), by = MathHelper.floor_double(py), bz = MathHelper.floor_double(pz);
+				if (inside && (bx < shape.getMinX() || bx > shape.getMaxX() || by < shape.getMinY() || by > shape.getMaxY() || bz < shape.getMinZ() || bz > shape.getMaxZ())) {
+					fail(describe(type) + " point " + px + ", " + py + ", " + pz + " is inside but outside the block bounds");
+				}
+			}
+
+			for (int i = 0; i < PLAYERS; ++i) {
+				players.get(i).setPosition(rand.nextDouble() * 48.0D - 24.0D, rand.nextDouble() * 48.0D + 40.0D, rand.nextDouble() * 48.0D - 24.0D);
+			}
+			// the broadphase is rebuilt once per world tick
+			world.tick();
+			StubPlayer exclude = players.get(rand.nextInt(PLAYERS));
+			Set<EntityLivingBase> expected = new HashSet<EntityLivingBase>();
+			for (int i = 0; i < PLAYERS; ++i) {
+				if (players.get(i) != exclude && shape.contains(players.get(i))) { expected.add(players.get(i)); }
+			}
+			shape.getTargets(world, exclude, targets);
+			if (targets.size() != expected.size() || !expected.containsAll(targets)) {
+				fail(describe(type) + " getTargets found " + targets.size() + " targets, expected " + expected.size());
+			}
+		}
+
+		for (round = 1; round <= rounds / 10; ++round) { checkBatch(rand); }
+		System.out.println("AreaShape and BlockEditBatch matched the reference over " + rounds + " rounds (seed " + seed + ")");
+		System.exit(0);
+	}
+
+	/**
+	 * Applies random edits over a few chunks, some of which don't exist, through a batch and
+	 * compares the result with the same edits made one at a time
+	 */
+	private static void checkBatch(Random rand)
+	{
+		StubWorld world = StubWorld.create(false, 0);
+		Provider provider = new Provider(world);
+		Stubs.setField(world, World.class, "chunkProvider", provider);
+		for (int cx = -1; cx <= 1; ++cx) {
+			for (int cz = -1; cz <= 1; ++cz) {
+				if (rand.nextInt(4) != 0) { provider.loadChunk(cx, cz); }
+			}
+		}
+		List<ChunkPosition> notified = new ArrayList<ChunkPosition>();
+		world.recordNeighborChanges(notified);
+
+		// glass neither emits nor blocks light, so no lighting updates are needed
+		BlockEditBatch batch = new BlockEditBatch(world);
+		Map<ChunkPosition, Integer> expected = new HashMap<ChunkPosition, Integer>();
+		Set<ChunkPosition> changed = new HashSet<ChunkPosition>();
+		int expectedChanges = 0, edits = 1 + rand.nextInt(300);
+		for (int i = 0; i < edits; ++i)
+		{
+			ChunkPosition pos = new ChunkPosition(rand.nextInt(40) - 20, 60 + rand.nextInt(8), rand.nextInt(40) - 20);
+			int blockId = rand.nextBoolean() ? Block.glass.blockID : 0;
+			batch.setBlock(pos.x, pos.y, pos.z, blockId);
+			if (!provider.chunkExists(pos.x >> 4, pos.z >> 4)) { continue; }
+			Integer current = expected.get(pos);
+			if ((current == null ? 0 : current.intValue()) != blockId) {
+				++expectedChanges;
+				changed.add(pos);
+			}
+			expected.put(pos, blockId);
+		}
+
+		int changes = batch.apply();
+		if (changes != expectedChanges) { fail("BlockEditBatch.apply changed " + changes + " blocks, expected " + expectedChanges); }
+		if (batch.size() != 0) { fail("BlockEditBatch still holds " + batch.size() + " edits after apply"); }
+		for (Map.Entry<ChunkPosition, Integer> entry : expected.entrySet()) {
+			ChunkPosition pos = entry.getKey();
+			int blockId = provider.provideChunk(pos.x >> 4, pos.z >> 4).getBlockID(pos.x & 15, pos.y, pos.z & 15);
+			if (blockId != entry.getValue()) { fail("block at " + pos.x + ", " + pos.y + ", " + pos.z + " is " + blockId + ", expected " + entry.getValue()); }
+		}
+
+		Set<ChunkPosition> expectedNotified = new HashSet<ChunkPosition>();
+		for (ChunkPosition pos : changed) {
+			for (int side = 0; side < 6; ++side) {
+				ChunkPosition neighbor = new ChunkPosition(pos.x + (side == 4 ? -1 : side == 5 ? 1 : 0), pos.y + (side == 0 ? -1 : side == 1 ? 1 : 0), pos.z + (side == 2 ? -1 : side == 3 ? 1 : 0));
+				if (!changed.contains(neighbor)) { expectedNotified.add(neighbor); }
+			}
+		}
+		if (notified.size() != expectedNotified.size() || !expectedNotified.equals(new HashSet<ChunkPosition>(notified))) {
+			fail("BlockEditBatch notified " + notified.size() + " neighbors (" + new HashSet<ChunkPosition>(notified).size() + " distinct), expected " + expectedNotified.size());
+		}
+	}
+
+	/** Positive inside the sphere, negative outside */
+	private static double sphereMargin(double vx, double vy, double vz, double radius) {
+		return radius - Math.sqrt(vx * vx + vy * vy + vz * vz);
+	}
+
+	/** Positive inside the cone, negative outside: the smallest of the distances in angle and along the axis to its surface */
+	private static double coneMargin(double vx, double vy, double vz, double dx, double dy, double dz, double length, float angle)
+	{
+		double dist = Math.sqrt(vx * vx + vy * vy + vz * vz);
+		if (dist < EPSILON) { return 0.0D; }
+		double along = vx * dx + vy * dy + vz * dz;
+		double off = Math.toRadians(angle) - Math.acos(Math.max(-1.0D, Math.min(1.0D, along / dist)));
+		return Math.min(off, Math.min(along, length - along));
+	}
+
+	/** Positive inside the line's cylinder, negative outside */
+	private static double lineMargin(double vx, double vy, double vz, double dx, double dy, double dz, double length, double radius)
+	{
+		double along = vx * dx + vy * dy + vz * dz;
+		// distance from the axis is the length of the cross product with the unit direction
+		double cx = vy * dz - vz * dy, cy = vz * dx - vx * dz, cz = vx * dy - vy * dx;
+		return Math.min(radius - Math.sqrt(cx * cx + cy * cy + cz * cz), Math.min(along, length - along));
+	}
+
+	private static String describe(int type) { return type == 0 ? "sphere" : type == 1 ? "cone" : "line"; }
+
+	private static void fail(String message)
+	{
+		System.out.println("FAILED in round " + round + " (seed " + seed + "): " + message);
+		System.exit(1);
+	}
+}
@@ -0,0 +1,36 @@
+package coolalias.skillsmod.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Runs the JMH benchmarks in this package with the GC profiler, so that each result reports
+ * allocation rate (gc.alloc.rate.norm, bytes per operation) alongside throughput.
+ * 
+ * Usage: BenchmarkMain [include regex], e.g. 'SkillInfoBenchmark.addXp'; default runs everything.
+ * Needs JMH (core and annotation processor), the mod's classes and the deobfuscated Minecraft
+ * and Forge jars on the class path. bench/build.sh compiles everything with the annotation
+ * processor and runs a tool; with MC set to the deobfuscated Minecraft/Forge 1.6.4 jars and
+ * their libraries, and JMH set to jmh-core, jmh-generator-annprocess, jopt-simple and
+ * commons-math3:
+ *
+ *   bench/build.sh BenchmarkMain [include regex]
+ *
+ * The annotation processor writes the generated benchmark classes and META-INF/BenchmarkList
+ * to build/bench. The other tools in this package (AllocationBudgets, LoadSimulator, etc.)
+ * run the same way.
+ *
+ */
+public class BenchmarkMain
+{
+	public static void main(String[] args) throws RunnerException
+	{
+		String include = args.length > 0 ? args[0] : BenchmarkMain.class.getPackage().getName() + ".*Benchmark.*";
+		new Runner(new OptionsBuilder().include(include).addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,178 @@
+package coolalias.skillsmod.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import net.minecraft.block.Block;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.entity.monster.EntityZombie;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.DamageSource;
+import net.minecraftforge.event.entity.living.LivingAttackEvent;
+import net.minecraftforge.event.entity.living.LivingDeathEvent;
+import net.minecraftforge.event.entity.living.LivingEvent.LivingJumpEvent;
+import net.minecraftforge.event.entity.living.LivingEvent.LivingUpdateEvent;
+import net.minecraftforge.event.entity.living.LivingHurtEvent;
+import net.minecraftforge.event.entity.player.ArrowLooseEvent;
+import net.minecraftforge.event.world.BlockEvent.HarvestDropsEvent;
+import coolalias.skillsmod.IPacketListener;
+import coolalias.skillsmod.PacketHandler;
+import coolalias.skillsmod.SkillSnapshots;
+import coolalias.skillsmod.SkillsHandler;
+import coolalias.skillsmod.SkillsMod;
+import coolalias.skillsmod.items.ItemSkillBook;
+import coolalias.skillsmod.skills.SkillBase;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Headless load generator: ticks N stub players on a stub server world, driving a random but
+ * repeatable stream of events through SkillsHandler each tick (movement and sprinting, jumps,
+ * damage taken and dealt, blocking, kills, block breaks, bow shots and the odd skill book),
+ * at rates roughly matching an ordinary survival session.
+ * 
+ * For each player count, reports the time taken by the whole tick (all players, then publishing
+ * the skill snapshots of players changed during the tick) as percentiles,
+ * and the skillsmod packets and bytes produced per tick, as counted by an IPacketListener.
+ * Projectiles spawned by skills are discarded each tick; see ProjectileBenchmark for those.
+ * 
+ * Usage: LoadSimulator [player counts, default 10,100,1000,10000] [ticks, default 1200] [seed]
+ *
+ */
+public class LoadSimulator implements IPacketListener
+{
+	/** Chance per player per tick of each event */
+	private static final double JUMP = 0.02D, SPRINT_TOGGLE = 0.01D, MOVE_TOGGLE = 0.02D, HURT = 0.005D, BLOCKING = 0.002D,
+			ATTACK = 0.02D, KILL = 0.002D, BREAK = 0.02D, BOW = 0.002D, BOOK = 0.0001D;
+	
+	/** Packets and bytes produced during the current tick */
+	private int packets, bytes;
+	
+	public static void main(String[] args)
+	{
+		int[] counts = { 10, 100, 1000, 10000 };
+		if (args.length > 0) {
+			String[] parts = args[0].split(",");
+			counts = new int[parts.length];
+			for (int i = 0; i < parts.length; ++i) { counts[i] = Integer.parseInt(parts[i].trim()); }
+		}
+		int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 1200;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+		
+		LoadSimulator simulator = new LoadSimulator();
+		PacketHandler.addListener(simulator);
+		System.out.println("players,ticks,tick_p50_ms,tick_p90_ms,tick_p99_ms,tick_max_ms,packets_per_tick,max_packets_per_tick,bytes_per_tick,max_bytes_per_tick");
+		for (int count : counts) {
+			System.out.println(simulator.run(count, ticks, seed));
+		}
+		PacketHandler.removeListener(simulator);
+	}
+	
+	@Override
+	public void onPacketSent(EntityPlayer player, boolean toServer, byte[] data) {
+		++packets;
+		bytes += data.length;
+	}
+	
+	@Override
+	public void onPacketReceived(EntityPlayer player, boolean onServer, byte[] data) {}
+	
+	/**
+	 * Simulates the given number of players for a number of ticks, after a warm-up of a tenth as
+	 * many, and returns the results as a line of comma-separated values
+	 */
+	public String run(int count, int ticks, long seed)
+	{
+		Random rand = new Random(seed);
+		SkillSnapshots.clear();
+		StubWorld world = StubWorld.create(false, 63);
+		StubPlayer[] players = new StubPlayer[count];
+		for (int i = 0; i < count; ++i) { players[i] = StubPlayer.create(world, "player" + i); }
+		EntityLivingBase mob = Stubs.allocate(EntityZombie.class);
+		// onDeath checks the dying entity's world
+		mob.worldObj = world;
+		SkillsHandler handler = new SkillsHandler();
+		ItemStack bow = new ItemStack(Item.bow), sword = new ItemStack(Item.swordIron);
+		
+		int warmup = Math.max(ticks / 10, 1);
+		long[] tickTimes = new long[ticks];
+		int[] tickPackets = new int[ticks], tickBytes = new int[ticks];
+		for (int tick = -warmup; tick < ticks; ++tick)
+		{
+			packets = bytes = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < count; ++i) { tickPlayer(players[i], mob, handler, bow, sword, world, rand); }
+			// as at the end of each server tick (see SkillsTickHandler)
+			SkillSnapshots.publish();
+			long elapsed = System.nanoTime() - start;
+			world.tick();
+			world.loadedEntityList.clear();
+			if (tick >= 0) {
+				tickTimes[tick] = elapsed;
+				tickPackets[tick] = packets;
+				tickBytes[tick] = bytes;
+			}
+		}
+		
+		long totalPackets = 0L, totalBytes = 0L;
+		int maxPackets = 0, maxBytes = 0;
+		for (int i = 0; i < ticks; ++i) {
+			totalPackets += tickPackets[i];
+			totalBytes += tickBytes[i];
+			maxPackets = Math.max(maxPackets, tickPackets[i]);
+			maxBytes = Math.max(maxBytes, tickBytes[i]);
+		}
+		Arrays.sort(tickTimes);
+		return String.format(Locale.ROOT, "%d,%d,%.3f,%.3f,%.3f,%.3f,%.1f,%d,%.1f,%d", count, ticks,
+				percentile(tickTimes, 0.50D), percentile(tickTimes, 0.90D), percentile(tickTimes, 0.99D), tickTimes[ticks - 1] / 1.0E6D,
+				(double) totalPackets / ticks, maxPackets, (double) totalBytes / ticks, maxBytes);
+	}
+	
+	/**
+	 * Runs one tick worth of events for the player, in the order the server would see them
+	 */
+	private void tickPlayer(StubPlayer player, EntityLivingBase mob, SkillsHandler handler, ItemStack bow, ItemStack sword, StubWorld world, Random rand)
+	{
+		if (rand.nextDouble() < MOVE_TOGGLE) { player.motionX = player.motionX == 0.0D ? 0.1D : 0.0D; }
+		if (rand.nextDouble() < SPRINT_TOGGLE) { player.setSprinting(!player.isSprinting()); }
+		handler.onLivingUpdate(new LivingUpdateEvent(player));
+		
+		if (rand.nextDouble() < JUMP) { handler.onJump(new LivingJumpEvent(player)); }
+		if (rand.nextDouble() < HURT) {
+			DamageSource source = rand.nextBoolean() ? DamageSource.causeMobDamage(mob) : DamageSource.fall;
+			float amount = 1.0F + rand.nextInt(6);
+			handler.onAttacked(new LivingAttackEvent(player, source, amount));
+			handler.onHurt(new LivingHurtEvent(player, source, amount));
+		}
+		if (rand.nextDouble() < BLOCKING) {
+			// hit while holding up a sword, so that isBlocking is true for the attack event
+			DamageSource source = DamageSource.causeMobDamage(mob);
+			player.setItemInUse(sword, sword.getMaxItemUseDuration());
+			handler.onAttacked(new LivingAttackEvent(player, source, 2.0F));
+			handler.onHurt(new LivingHurtEvent(player, source, 1.0F));
+			player.clearItemInUse();
+		}
+		if (rand.nextDouble() < ATTACK) {
+			handler.onHurt(new LivingHurtEvent(mob, DamageSource.causePlayerDamage(player), 1.0F + rand.nextInt(7)));
+		}
+		if (rand.nextDouble() < KILL) { handler.onDeath(new LivingDeathEvent(mob, DamageSource.causePlayerDamage(player))); }
+		if (rand.nextDouble() < BREAK) {
+			handler.onBreakBlock(new HarvestDropsEvent(0, 62, 0, world, Block.stone, 0, 0, 1.0F, new ArrayList<ItemStack>(), player, false));
+		}
+		if (rand.nextDouble() < BOW) { handler.onArrowLooseEvent(new ArrowLooseEvent(player, bow, 20)); }
+		if (rand.nextDouble() < BOOK) {
+			ItemStack book = ItemSkillBook.getSkillBook(SkillBase.fireBlast, (byte) 1);
+			SkillsMod.skillBook.onItemRightClick(book, world, player);
+		}
+	}
+	
+	/** Returns the value at the given fraction of the sorted nanosecond times, in milliseconds */
+	private static double percentile(long[] sorted, double fraction) {
+		return sorted[Math.min((int) (fraction * sorted.length), sorted.length - 1)] / 1.0E6D;
+	}
+}
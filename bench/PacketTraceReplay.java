@@ -0,0 +1,235 @@
+package coolalias.skillsmod.bench;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.network.packet.Packet250CustomPayload;
+import coolalias.skillsmod.IPacketListener;
+import coolalias.skillsmod.PacketHandler;
+import coolalias.skillsmod.PacketTraceRecorder;
+import coolalias.skillsmod.SkillInfo;
+import coolalias.skillsmod.skills.SkillBase;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Offline replay of a trace written by PacketTraceRecorder. Reports:
+ * 
+ * - bandwidth per packet type and direction: count, total and average bytes, bytes per second
+ *   over the duration of the trace
+ * - decode throughput: every payload is fed through PacketHandler.onPacketData on the side that
+ *   would receive it, using stub players with the recorded names
+ * - encode throughput: every sync and attribute update is encoded again with the matching
+ *   PacketHandler send method from the decoded state, along with the change in total size
+ * 
+ * OPEN_SERVER_GUI payloads are only counted, since handling them needs a running game.
+ * 
+ * Usage: PacketTraceReplay <trace file> [passes, default 10] [all|sent|received]
+ * Traces recorded in single player contain each payload twice, once sent and once received;
+ * replay only one kind for those.
+ *
+ */
+public class PacketTraceReplay
+{
+	private static final String[] TYPE_NAMES = { "UNKNOWN", "SYNC_PLAYER_INFO", "OPEN_SERVER_GUI", "ADD_XP", "UPDATE_ATTRIBUTE" };
+	
+	/** One payload from the trace */
+	private static final class Record
+	{
+		final byte flags;
+		final long time;
+		final String player;
+		final byte[] data;
+		
+		Record(byte flags, long time, String player, byte[] data) {
+			this.flags = flags;
+			this.time = time;
+			this.player = player;
+			this.data = data;
+		}
+		
+		/** Returns true if the payload was sent from the server to a client */
+		boolean toClient() { return ((flags & PacketTraceRecorder.FLAG_SENT) != 0) == ((flags & PacketTraceRecorder.FLAG_SERVER) != 0); }
+		
+		int type() { return data.length > 0 && data[0] > 0 && data[0] < TYPE_NAMES.length ? data[0] : 0; }
+	}
+	
+	private final StubWorld serverWorld = StubWorld.create(false, 63), clientWorld = StubWorld.create(true, 63);
+	
+	private final Map<String, StubPlayer> serverPlayers = new HashMap<String, StubPlayer>(), clientPlayers = new HashMap<String, StubPlayer>();
+	
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 1) {
+			System.out.println("Usage: PacketTraceReplay <trace file> [passes] [all|sent|received]");
+			return;
+		}
+		int passes = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		String mode = args.length > 2 ? args[2] : "all";
+		List<Record> records = read(args[0], mode);
+		System.out.println(records.size() + " records");
+		if (records.isEmpty()) { return; }
+		
+		PacketTraceReplay replay = new PacketTraceReplay();
+		replay.reportBandwidth(records);
+		replay.reportDecode(records, passes);
+		replay.reportEncode(records, passes);
+	}
+	
+	/**
+	 * Reads all records from the trace, keeping only sent or received ones unless mode is 'all'
+	 */
+	private static List<Record> read(String path, String mode) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16));
+		List<Record> records = new ArrayList<Record>();
+		try {
+			if (in.readInt() != PacketTraceRecorder.MAGIC) { throw new IOException("Not a skillsmod packet trace: " + path); }
+			int version = in.readInt();
+			if (version != PacketTraceRecorder.VERSION) { throw new IOException("Unsupported packet trace version " + version); }
+			in.readLong();
+			List<String> players = new ArrayList<String>();
+			players.add(null);
+			long time = 0L;
+			while (true)
+			{
+				byte flags;
+				try {
+					flags = in.readByte();
+				} catch (EOFException e) {
+					break;
+				}
+				time += readVarLong(in);
+				int index = (int) readVarLong(in);
+				if (index == players.size()) { players.add(in.readUTF()); }
+				byte[] data = new byte[(int) readVarLong(in)];
+				in.readFully(data);
+				boolean sent = (flags & PacketTraceRecorder.FLAG_SENT) != 0;
+				if (mode.equals("all") || mode.equals(sent ? "sent" : "received")) {
+					records.add(new Record(flags, time, players.get(index), data));
+				}
+			}
+		} finally {
+			in.close();
+		}
+		return records;
+	}
+	
+	private static long readVarLong(DataInputStream in) throws IOException
+	{
+		long value = 0L;
+		for (int shift = 0; ; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) { return value; }
+		}
+	}
+	
+	private void reportBandwidth(List<Record> records)
+	{
+		double seconds = Math.max((records.get(records.size() - 1).time - records.get(0).time) / 1.0E6D, 1.0E-3D);
+		long[][] counts = new long[2][TYPE_NAMES.length], bytes = new long[2][TYPE_NAMES.length];
+		for (Record record : records) {
+			int direction = record.toClient() ? 0 : 1;
+			++counts[direction][record.type()];
+			bytes[direction][record.type()] += record.data.length;
+		}
+		System.out.println(String.format(Locale.ROOT, "Bandwidth over %.1f s:", seconds));
+		System.out.println("direction,type,count,bytes,avg_bytes,bytes_per_sec");
+		for (int direction = 0; direction < 2; ++direction) {
+			for (int type = 0; type < TYPE_NAMES.length; ++type) {
+				if (counts[direction][type] == 0) { continue; }
+				System.out.println(String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.1f", direction == 0 ? "to_client" : "to_server", TYPE_NAMES[type],
+						counts[direction][type], bytes[direction][type], (double) bytes[direction][type] / counts[direction][type], bytes[direction][type] / seconds));
+			}
+		}
+	}
+	
+	private void reportDecode(List<Record> records, int passes)
+	{
+		PacketHandler handler = new PacketHandler();
+		long decoded = 0L, decodedBytes = 0L, skipped = 0L;
+		long start = System.nanoTime();
+		for (int pass = 0; pass < passes; ++pass) {
+			for (Record record : records) {
+				if (record.type() == PacketHandler.OPEN_SERVER_GUI || record.type() == 0) {
+					++skipped;
+					continue;
+				}
+				handler.onPacketData(null, new Packet250CustomPayload("skillsmod", record.data), getPlayer(record.player, record.toClient()));
+				++decoded;
+				decodedBytes += record.data.length;
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1.0E9D;
+		System.out.println(String.format(Locale.ROOT, "Decode: %d packets in %.3f s, %.0f packets/s, %.2f MB/s (%d skipped)",
+				decoded, seconds, decoded / seconds, decodedBytes / seconds / 1.0E6D, skipped));
+	}
+	
+	private void reportEncode(List<Record> records, int passes)
+	{
+		final long[] encoded = new long[2];
+		IPacketListener counter = new IPacketListener() {
+			@Override
+			public void onPacketSent(EntityPlayer player, boolean toServer, byte[] data) {
+				++encoded[0];
+				encoded[1] += data.length;
+			}
+			
+			@Override
+			public void onPacketReceived(EntityPlayer player, boolean onServer, byte[] data) {}
+		};
+		
+		PacketHandler handler = new PacketHandler();
+		long originalBytes = 0L, time = 0L;
+		PacketHandler.addListener(counter);
+		try {
+			for (int pass = 0; pass < passes; ++pass) {
+				for (Record record : records) {
+					int type = record.type();
+					if (!record.toClient() || (type != PacketHandler.SYNC_PLAYER_INFO && type != PacketHandler.UPDATE_ATTRIBUTE)) { continue; }
+					StubPlayer player = getPlayer(record.player, true);
+					// decode first so that there is matching state to encode again; not timed
+					handler.onPacketData(null, new Packet250CustomPayload("skillsmod", record.data), player);
+					SkillBase attribute = type == PacketHandler.UPDATE_ATTRIBUTE ? SkillInfo.get(player).getBaseSkills().get(record.data[1]) : null;
+					long start = System.nanoTime();
+					if (attribute != null) {
+						PacketHandler.sendAttributePacket(player, attribute);
+					} else {
+						PacketHandler.sendSyncSkillsPacket(player);
+					}
+					time += System.nanoTime() - start;
+					originalBytes += record.data.length;
+				}
+			}
+		} finally {
+			PacketHandler.removeListener(counter);
+		}
+		double seconds = Math.max(time / 1.0E9D, 1.0E-9D);
+		System.out.println(String.format(Locale.ROOT, "Encode: %d packets in %.3f s, %.0f packets/s, %d bytes (recorded %d)",
+				encoded[0], seconds, encoded[0] / seconds, encoded[1], originalBytes));
+	}
+	
+	/** Returns the stub player with this name on the given side, creating it if necessary */
+	private StubPlayer getPlayer(String name, boolean client)
+	{
+		if (name == null) { name = "unknown"; }
+		Map<String, StubPlayer> players = client ? clientPlayers : serverPlayers;
+		StubPlayer player = players.get(name);
+		if (player == null) {
+			player = StubPlayer.create(client ? clientWorld : serverWorld, name);
+			players.put(name, player);
+		}
+		return player;
+	}
+}
@@ -0,0 +1,156 @@
+package coolalias.skillsmod.bench;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import net.minecraft.entity.Entity;
+import coolalias.skillsmod.CommonProxy;
+import coolalias.skillsmod.SkillsMod;
+import coolalias.skillsmod.entity.EntityCustomArrow;
+import coolalias.skillsmod.entity.EntitySpatialHash;
+import coolalias.skillsmod.entity.skill.EntityFireBlast;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Repeatable projectile benchmark: fires a large volley of EntityCustomArrow or EntityFireBlast
+ * into a fresh stub world (flat ground, optionally a field of stationary targets) and ticks the
+ * world as the server would, measuring for each scenario:
+ * 
+ * - time per projectile update (average) and per tick (percentiles)
+ * - broadphase queries and candidates tested per tick (EntitySpatialHash statistics)
+ * - bytes allocated per tick on the ticking thread
+ * - projectiles remaining, sleeping (for arrows) and target hits at the end
+ * 
+ * Each scenario first runs a number of untimed ticks, e.g. to let arrows land before measuring
+ * them stuck in the ground. Results are printed as one JSON object per line, and appended to
+ * the output file if one is given, so runs before and after a change can be compared.
+ * 
+ * Usage: ProjectileBenchmark [projectiles per volley, default 1000] [output file]
+ *
+ */
+public class ProjectileBenchmark
+{
+	private static final int GROUND_LEVEL = 63;
+	
+	static enum Type { ARROW, FIRE_BLAST };
+	
+	private final int volley;
+	
+	public ProjectileBenchmark(int volley) { this.volley = volley; }
+	
+	public static void main(String[] args) throws IOException
+	{
+		int volley = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		PrintWriter file = args.length > 1 ? new PrintWriter(new FileWriter(args[1], true)) : null;
+		if (SkillsMod.proxy == null) { SkillsMod.proxy = new CommonProxy(); }
+		
+		ProjectileBenchmark benchmark = new ProjectileBenchmark(volley);
+		String[] results = {
+			// name, type, pitch, velocity, targets, untimed ticks, timed ticks
+			benchmark.run("arrow_flight", Type.ARROW, -60.0F, 3.0F, false, 0, 40),
+			benchmark.run("arrow_ground", Type.ARROW, 30.0F, 2.0F, false, 40, 100),
+			benchmark.run("arrow_targets", Type.ARROW, 0.0F, 3.0F, true, 0, 40),
+			benchmark.run("fireblast_flight", Type.FIRE_BLAST, -10.0F, 0.0F, false, 0, 40),
+			benchmark.run("fireblast_targets", Type.FIRE_BLAST, 0.0F, 0.0F, true, 0, 40)
+		};
+		for (String result : results) {
+			System.out.println(result);
+			if (file != null) { file.println(result); }
+		}
+		if (file != null) { file.close(); }
+	}
+	
+	/**
+	 * Runs a single scenario and returns its results as a JSON object on one line; velocity is
+	 * ignored for fire blasts, which always use their own speed
+	 */
+	String run(String name, Type type, float pitch, float velocity, boolean targets, int untimedTicks, int timedTicks)
+	{
+		Random rand = new Random(name.hashCode());
+		StubWorld world = StubWorld.create(false, GROUND_LEVEL);
+		// not added to the world; only used to aim and as the projectiles' owner
+		StubPlayer shooter = StubPlayer.create(world, "shooter");
+		int targetCount = targets ? addTargets(world) : 0;
+		
+		for (int i = 0; i < volley; ++i)
+		{
+			// spread of +/- 30 degrees around +Z, where the targets are
+			shooter.rotationYaw = rand.nextFloat() * 60.0F - 30.0F;
+			shooter.rotationPitch = pitch + rand.nextFloat() * 4.0F - 2.0F;
+			Entity projectile;
+			if (type == Type.FIRE_BLAST) {
+				projectile = new EntityFireBlast(world, shooter).setLevel(1);
+			} else {
+				projectile = new EntityCustomArrow(world, shooter, velocity);
+			}
+			world.spawnEntityInWorld(projectile);
+		}
+		
+		for (int i = 0; i < untimedTicks; ++i) { tick(world); }
+		
+		EntitySpatialHash hash = EntitySpatialHash.get(world);
+		hash.resetStats();
+		long[] tickTimes = new long[timedTicks];
+		long updates = 0L, totalTime = 0L, allocated = 0L;
+		for (int i = 0; i < timedTicks; ++i)
+		{
+			updates += countProjectiles(world, false);
+			long bytes = Allocations.current();
+			long start = System.nanoTime();
+			tick(world);
+			tickTimes[i] = System.nanoTime() - start;
+			allocated += Allocations.current() - bytes;
+			totalTime += tickTimes[i];
+		}
+		Arrays.sort(tickTimes);
+		
+		int hits = 0;
+		for (Object entity : world.loadedEntityList) {
+			if (entity instanceof StubTarget) { hits += ((StubTarget) entity).hits; }
+		}
+		return String.format(Locale.ROOT, "{\"scenario\":\"%s\",\"projectiles\":%d,\"targets\":%d,\"ticks\":%d,\"ns_per_update\":%.1f," +
+				"\"tick_p50_ms\":%.3f,\"tick_p99_ms\":%.3f,\"queries_per_tick\":%.1f,\"candidates_per_tick\":%.1f," +
+				"\"alloc_bytes_per_tick\":%s,\"remaining\":%d,\"sleeping\":%d,\"hits\":%d}",
+				name, volley, targetCount, timedTicks, updates > 0 ? (double) totalTime / updates : 0.0D,
+				tickTimes[timedTicks / 2] / 1.0E6D, tickTimes[Math.min((int) (timedTicks * 0.99D), timedTicks - 1)] / 1.0E6D,
+				(double) hash.getQueryCount() / timedTicks, (double) hash.getCandidateCount() / timedTicks,
+				Allocations.isSupported() ? String.valueOf(allocated / timedTicks) : "null",
+				countProjectiles(world, false), countProjectiles(world, true), hits);
+	}
+	
+	/** Runs one server tick of entity updates */
+	private static void tick(StubWorld world) { world.updateEntities(); }
+	
+	/** Places a 5 x 5 grid of targets 10 to 26 blocks in front of the shooter; returns the number placed */
+	private static int addTargets(StubWorld world)
+	{
+		int count = 0;
+		for (int x = -8; x <= 8; x += 4) {
+			for (int z = 10; z <= 26; z += 4) {
+				world.addEntity(new StubTarget(world, x + 0.5D, GROUND_LEVEL, z + 0.5D));
+				++count;
+			}
+		}
+		return count;
+	}
+	
+	/** Returns the number of live projectiles in the world, or only sleeping arrows if 'sleeping' */
+	private static int countProjectiles(StubWorld world, boolean sleeping)
+	{
+		int count = 0;
+		for (Object entity : world.loadedEntityList) {
+			if (entity instanceof EntityCustomArrow) {
+				if (!sleeping || ((EntityCustomArrow) entity).isSleeping()) { ++count; }
+			} else if (entity instanceof EntityFireBlast && !sleeping) {
+				++count;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,99 @@
+package coolalias.skillsmod.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import coolalias.skillsmod.util.RankTree;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Correctness check for RankTree, which backs SkillLeaderboard. Applies random inserts, score
+ * changes and removals to a RankTree and to a plain sorted list, and after each update compares
+ * the moved entry's rank and, every CHECK_INTERVAL updates, the whole ordering.
+ *
+ * Usage: RankTreeCheck [updates, default 200000] [seed]
+ * Exits with status 1 on the first mismatch, so it can be run as a build or pre-commit check.
+ *
+ */
+public class RankTreeCheck
+{
+	/** Number of distinct keys; scores are drawn from a small range so that ties are common */
+	private static final int KEYS = 2000, MAX_SCORE = 100;
+
+	/** Number of updates between full comparisons of every position */
+	private static final int CHECK_INTERVAL = 1000;
+
+	/** Same order as RankTree: score from highest to lowest, then key */
+	private static final Comparator<Object[]> ORDER = new Comparator<Object[]>() {
+		@Override
+		public int compare(Object[] a, Object[] b) {
+			int scoreA = (Integer) a[1], scoreB = (Integer) b[1];
+			return scoreA != scoreB ? (scoreA > scoreB ? -1 : 1) : ((String) a[0]).compareTo((String) b[0]);
+		}
+	};
+
+	public static void main(String[] args)
+	{
+		int updates = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		Random rand = new Random(seed);
+		RankTree tree = new RankTree();
+		Map<String, Integer> scores = new HashMap<String, Integer>();
+		List<Object[]> reference = new ArrayList<Object[]>();
+
+		for (int n = 1; n <= updates; ++n)
+		{
+			String key = "player" + rand.nextInt(KEYS);
+			Integer old = scores.get(key);
+			if (old != null) {
+				if (!tree.remove(key, old)) { fail(seed, n, "remove(" + key + ", " + old + ") found no entry"); }
+				reference.remove(find(reference, key, old));
+				scores.remove(key);
+			}
+			// leave roughly one in ten touched keys out, so removals are exercised too
+			if (old == null || rand.nextInt(10) != 0) {
+				int score = rand.nextInt(MAX_SCORE);
+				tree.insert(key, score);
+				scores.put(key, score);
+				int expected = -find(reference, key, score) - 1;
+				reference.add(expected, new Object[] { key, score });
+				int rank = tree.rank(key, score);
+				if (rank != expected) { fail(seed, n, "rank(" + key + ", " + score + ") was " + rank + ", expected " + expected); }
+			}
+			if (tree.size() != reference.size()) { fail(seed, n, "size was " + tree.size() + ", expected " + reference.size()); }
+			if (n % CHECK_INTERVAL == 0) { checkAll(seed, n, tree, reference); }
+		}
+		checkAll(seed, updates, tree, reference);
+		System.out.println("RankTree matched the reference over " + updates + " updates (" + tree.size() + " entries, seed " + seed + ")");
+		System.exit(0);
+	}
+
+	/** Returns the index of the entry in the sorted list, or (-(insertion point) - 1) if it is absent */
+	private static int find(List<Object[]> reference, String key, int score) {
+		return Collections.binarySearch(reference, new Object[] { key, score }, ORDER);
+	}
+
+	/** Compares every position of the tree with the reference */
+	private static void checkAll(long seed, int n, RankTree tree, List<Object[]> reference)
+	{
+		for (int i = 0; i < reference.size(); ++i) {
+			Object[] entry = reference.get(i);
+			if (!tree.getKey(i).equals(entry[0]) || tree.getScore(i) != (Integer) entry[1]) {
+				fail(seed, n, "position " + i + " was " + tree.getKey(i) + " (" + tree.getScore(i) + "), expected " + entry[0] + " (" + entry[1] + ")");
+			}
+		}
+	}
+
+	private static void fail(long seed, int n, String message)
+	{
+		System.out.println("FAILED after " + n + " updates (seed " + seed + "): " + message);
+		System.exit(1);
+	}
+}
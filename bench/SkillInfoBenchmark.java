@@ -0,0 +1,193 @@
+package coolalias.skillsmod.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.nbt.NBTTagCompound;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import coolalias.skillsmod.SkillInfo;
+import coolalias.skillsmod.SkillSnapshots;
+import coolalias.skillsmod.SkillsHandler;
+import coolalias.skillsmod.skills.SkillAttribute;
+import coolalias.skillsmod.skills.SkillBase;
+import coolalias.skillsmod.skills.SkillBase.AttributeCode;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * JMH benchmarks for the skill core on the server side: adding XP, looking up skill levels,
+ * learning skills, chains of attribute level ups and NBT / stream round trips of a player's
+ * SkillInfo. Run through BenchmarkMain to get allocation rates from the GC profiler as well.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SkillInfoBenchmark
+{
+	/** Levels of each attribute for the 'trained' player used by the lookup and serialization benchmarks */
+	private static final int TRAINED_LEVEL = 10;
+	
+	private static final long XP_LOW_UNITS = SkillAttribute.toXpUnits(SkillsHandler.XP_LOW);
+	
+	private StubPlayer player;
+	
+	/** SkillInfo with every attribute at TRAINED_LEVEL and all skills learned */
+	private SkillInfo trained;
+	
+	/** Target of NBT and stream reads */
+	private SkillInfo target;
+	
+	private NBTTagCompound savedNBT;
+	
+	private byte[] savedStream;
+	
+	private final ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		StubWorld world = StubWorld.create(false, 63);
+		player = StubPlayer.create(world, "bench");
+		trained = player.resetSkills();
+		for (AttributeCode code : AttributeCode.values()) {
+			for (int level = 0; level < TRAINED_LEVEL; ++level) {
+				trained.addXpUnits(SkillAttribute.XP_UNIT * (level * level + 1), (byte) code.ordinal());
+			}
+		}
+		trained.grantSkill(SkillBase.ironFlesh.id, (byte) 1);
+		trained.grantSkill(SkillBase.fireBlast.id, (byte) 1);
+		trained.getNotifier().flush();
+		target = new SkillInfo(player);
+		
+		savedNBT = new NBTTagCompound();
+		trained.saveNBTData(savedNBT);
+		bos.reset();
+		trained.writeToStream(new DataOutputStream(bos));
+		savedStream = bos.toByteArray();
+	}
+	
+	/**
+	 * Per-invocation state for benchmarks that change the player's skills: a fresh SkillInfo
+	 * registered to its own player
+	 */
+	@State(Scope.Thread)
+	public static class Fresh
+	{
+		StubPlayer player;
+		SkillInfo info;
+		
+		@Setup(Level.Trial)
+		public void createPlayer() { player = StubPlayer.create(StubWorld.create(false, 63), "fresh"); }
+		
+		@Setup(Level.Invocation)
+		public void reset() { info = player.resetSkills(); }
+		
+		/** Drops the pending snapshot, which would otherwise keep every invocation's SkillInfo reachable */
+		@TearDown(Level.Invocation)
+		public void clearSnapshots() { SkillSnapshots.clear(); }
+	}
+	
+	/**
+	 * The most common case: a small amount of XP that doesn't level the attribute; adds and then
+	 * removes it again so the attribute never levels however long the benchmark runs
+	 */
+	@Benchmark
+	@OperationsPerInvocation(2)
+	public void addXpNoLevelUp()
+	{
+		SkillInfo info = SkillInfo.get(player);
+		info.addXpUnits(XP_LOW_UNITS, (byte) AttributeCode.STR.ordinal());
+		info.addXpUnits(-XP_LOW_UNITS, (byte) AttributeCode.STR.ordinal());
+	}
+	
+	@Benchmark
+	public int getSkillLevel() {
+		return trained.getSkillLevel(SkillBase.skillsList[AttributeCode.AGI.ordinal()]) + trained.getSkillLevel(SkillBase.ironFlesh);
+	}
+	
+	@Benchmark
+	public boolean grantSkill(Fresh fresh) { return fresh.info.grantSkill(SkillBase.ironFlesh.id, (byte) 1); }
+	
+	/**
+	 * Enough XP at once to take Strength from level 0 to TRAINED_LEVEL through chained level ups
+	 */
+	@Benchmark
+	public byte levelUpChain(Fresh fresh)
+	{
+		long total = 0L;
+		for (int level = 0; level < TRAINED_LEVEL; ++level) { total += SkillAttribute.XP_UNIT * (level * level + 1); }
+		fresh.info.addXpUnits(total, (byte) AttributeCode.STR.ordinal());
+		return fresh.info.getCharacterLevel();
+	}
+	
+	@Benchmark
+	public SkillInfo nbtRoundTrip()
+	{
+		NBTTagCompound compound = new NBTTagCompound();
+		trained.saveNBTData(compound);
+		target.loadNBTData(compound);
+		return target;
+	}
+	
+	@Benchmark
+	public NBTTagCompound saveNBT()
+	{
+		NBTTagCompound compound = new NBTTagCompound();
+		trained.saveNBTData(compound);
+		return compound;
+	}
+	
+	@Benchmark
+	public SkillInfo loadNBT()
+	{
+		target.loadNBTData(savedNBT);
+		return target;
+	}
+	
+	@Benchmark
+	public SkillInfo streamRoundTrip() throws IOException
+	{
+		bos.reset();
+		trained.writeToStream(new DataOutputStream(bos));
+		target.readFromStream(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+		return target;
+	}
+	
+	@Benchmark
+	public int writeToStream() throws IOException
+	{
+		bos.reset();
+		trained.writeToStream(new DataOutputStream(bos));
+		return bos.size();
+	}
+	
+	@Benchmark
+	public SkillInfo readFromStream() throws IOException
+	{
+		target.readFromStream(new DataInputStream(new ByteArrayInputStream(savedStream)));
+		return target;
+	}
+}
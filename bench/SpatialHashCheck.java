@@ -0,0 +1,107 @@
+package coolalias.skillsmod.bench;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.util.AxisAlignedBB;
+import coolalias.skillsmod.entity.EntitySpatialHash;
+import coolalias.skillsmod.util.RayMath;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Correctness check for EntitySpatialHash.getEntitiesAlongSegment, which projectiles use as
+ * their broadphase. Each round scatters targets with random motion, builds the hash with a first
+ * query, then moves some targets by their motion (as if updated later in the tick, some much
+ * faster than a block per tick) and spawns a few more, and checks that every target a random
+ * segment hits, by the same ray test as EntityCustomArrow, is among the candidates returned.
+ *
+ * Usage: SpatialHashCheck [rounds, default 2000] [seed]
+ * Exits with status 1 on the first mismatch, so it can be run as a build or pre-commit check.
+ *
+ */
+public class SpatialHashCheck
+{
+	/** Targets placed each round, and spawned after the hash was built */
+	private static final int TARGETS = 300, SPAWNED = 10;
+
+	/** Segments tested per round */
+	private static final int SEGMENTS = 50;
+
+	/** Same hit box expansion as EntityCustomArrow.checkForImpact */
+	private static final double RADIUS = 0.3D;
+
+	public static void main(String[] args)
+	{
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		Random rand = new Random(seed);
+		StubWorld world = StubWorld.create(false, 0);
+		EntitySpatialHash hash = EntitySpatialHash.get(world);
+		List<StubTarget> targets = new ArrayList<StubTarget>(TARGETS + SPAWNED);
+
+		for (int round = 1; round <= rounds; ++round)
+		{
+			world.loadedEntityList.clear();
+			targets.clear();
+			for (int i = 0; i < TARGETS; ++i) { targets.add(place(world, rand)); }
+			world.tick();
+			hash.getEntitiesInBox(null, 0.0D, 0.0D, 0.0D, 0.0D, 0.0D, 0.0D);
+
+			// updated after the hash was built: some move, and a few new ones join the world
+			for (int i = 0; i < TARGETS; ++i) {
+				StubTarget target = targets.get(i);
+				if (rand.nextBoolean()) { target.setPosition(target.posX + target.motionX, target.posY + target.motionY, target.posZ + target.motionZ); }
+			}
+			for (int i = 0; i < SPAWNED; ++i) {
+				StubTarget target = place(world, rand);
+				targets.add(target);
+				EntitySpatialHash.onEntityAdded(target);
+			}
+
+			for (int n = 0; n < SEGMENTS; ++n)
+			{
+				double x = rand.nextDouble() * 64.0D - 32.0D, y = rand.nextDouble() * 64.0D, z = rand.nextDouble() * 64.0D - 32.0D;
+				double length = rand.nextInt(4) == 0 ? rand.nextDouble() * 3.0D : rand.nextDouble() * 40.0D;
+				double dx = rand.nextGaussian(), dy = rand.nextGaussian(), dz = rand.nextGaussian();
+				double scale = length / Math.sqrt(dx * dx + dy * dy + dz * dz);
+				dx *= scale;
+				dy *= scale;
+				dz *= scale;
+				Set<Entity> found = new HashSet<Entity>(hash.getEntitiesAlongSegment(null, x, y, z, dx, dy, dz, RADIUS));
+				for (int i = 0; i < targets.size(); ++i) {
+					StubTarget target = targets.get(i);
+					AxisAlignedBB bb = target.boundingBox;
+					double t = RayMath.intersectBox(x, y, z, dx, dy, dz, bb.minX - RADIUS, bb.minY - RADIUS, bb.minZ - RADIUS, bb.maxX + RADIUS, bb.maxY + RADIUS, bb.maxZ + RADIUS);
+					if (t >= 0.0D && !found.contains(target)) {
+						System.out.println("FAILED in round " + round + " (seed " + seed + "): segment from " + x + ", " + y + ", " + z + " by " + dx + ", " + dy + ", " + dz +
+								" hits the target at " + target.posX + ", " + target.posY + ", " + target.posZ + " but it was not a candidate");
+						System.exit(1);
+					}
+				}
+			}
+		}
+		System.out.println("EntitySpatialHash found every hit target over " + rounds + " rounds (seed " + seed + ")");
+		System.exit(0);
+	}
+
+	/** Adds a target at a random position, with random motion of up to 6 blocks per tick along each axis */
+	private static StubTarget place(StubWorld world, Random rand)
+	{
+		StubTarget target = new StubTarget(world, rand.nextDouble() * 64.0D - 32.0D, rand.nextDouble() * 64.0D, rand.nextDouble() * 64.0D - 32.0D);
+		double speed = rand.nextInt(10) == 0 ? 6.0D : 0.5D;
+		target.motionX = (rand.nextDouble() * 2.0D - 1.0D) * speed;
+		target.motionY = (rand.nextDouble() * 2.0D - 1.0D) * speed;
+		target.motionZ = (rand.nextDouble() * 2.0D - 1.0D) * speed;
+		target.prevPosX = target.posX;
+		target.prevPosY = target.posY;
+		target.prevPosZ = target.posZ;
+		world.addEntity(target);
+		return target;
+	}
+}
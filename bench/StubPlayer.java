@@ -0,0 +1,83 @@
+package coolalias.skillsmod.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import net.minecraft.entity.DataWatcher;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.PlayerCapabilities;
+import net.minecraft.util.AxisAlignedBB;
+import net.minecraft.util.ChatMessageComponent;
+import net.minecraft.util.ChunkCoordinates;
+import net.minecraft.util.MathHelper;
+import net.minecraftforge.common.IExtendedEntityProperties;
+import coolalias.skillsmod.SkillInfo;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Minimal EntityPlayer stand-in with a registered SkillInfo. Has a data watcher, attribute map,
+ * bounding box, capabilities and extended properties, but no inventory, network connection or chunk; chat
+ * messages are only counted. Not an EntityPlayerMP, so PacketDispatcher never sends anything
+ * to it.
+ *
+ */
+public class StubPlayer extends EntityPlayer
+{
+	private Map<String, IExtendedEntityProperties> properties;
+	
+	/** Number of chat messages sent to this player */
+	public int chatMessages;
+	
+	/** Never called; see create */
+	private StubPlayer() { super(null, null); }
+	
+	/**
+	 * Returns a new stub player in the world at 0, groundLevel, 0 with a fresh SkillInfo
+	 */
+	public static StubPlayer create(StubWorld world, String name)
+	{
+		StubPlayer player = Stubs.allocate(StubPlayer.class);
+		player.worldObj = world;
+		player.username = name;
+		player.properties = new HashMap<String, IExtendedEntityProperties>();
+		Stubs.setField(player, Entity.class, "extendedProperties", player.properties);
+		Stubs.setField(player, Entity.class, "boundingBox", AxisAlignedBB.getBoundingBox(0.0D, 0.0D, 0.0D, 0.0D, 0.0D, 0.0D));
+		Stubs.setField(player, Entity.class, "rand", new Random(name.hashCode()));
+		Stubs.setField(player, EntityPlayer.class, "capabilities", new PlayerCapabilities());
+		// same as Entity's constructor
+		DataWatcher watcher = new DataWatcher();
+		Stubs.setField(player, Entity.class, "dataWatcher", watcher);
+		watcher.addObject(0, Byte.valueOf((byte) 0));
+		watcher.addObject(1, Short.valueOf((short) 300));
+		player.entityInit();
+		player.applyEntityAttributes();
+		player.setSize(0.6F, 1.8F);
+		player.yOffset = 1.62F;
+		player.setPosition(0.5D, 64.0D, 0.5D);
+		player.resetSkills();
+		return player;
+	}
+	
+	/** Replaces the player's SkillInfo with a new one, as if the player had just joined */
+	public SkillInfo resetSkills()
+	{
+		SkillInfo info = new SkillInfo(this);
+		properties.put(SkillInfo.EXT_PROP_NAME, info);
+		return info;
+	}
+	
+	@Override
+	public void sendChatToPlayer(ChatMessageComponent message) { ++chatMessages; }
+	
+	@Override
+	public boolean canCommandSenderUseCommand(int level, String command) { return false; }
+	
+	@Override
+	public ChunkCoordinates getPlayerCoordinates() {
+		return new ChunkCoordinates(MathHelper.floor_double(posX), MathHelper.floor_double(posY + 0.5D), MathHelper.floor_double(posZ));
+	}
+}
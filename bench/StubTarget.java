@@ -0,0 +1,47 @@
+package coolalias.skillsmod.bench;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.DamageSource;
+import net.minecraft.world.World;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Stationary, collidable entity the size of a zombie for projectiles to hit. Takes no damage
+ * and never dies; only counts the hits it receives.
+ *
+ */
+public class StubTarget extends Entity
+{
+	/** Number of times this target was attacked */
+	public int hits;
+	
+	public StubTarget(World world, double x, double y, double z) {
+		super(world);
+		setSize(0.6F, 1.8F);
+		setPosition(x, y, z);
+	}
+	
+	@Override
+	public boolean canBeCollidedWith() { return true; }
+	
+	@Override
+	public boolean attackEntityFrom(DamageSource source, float amount) {
+		++hits;
+		return false;
+	}
+	
+	@Override
+	public void onUpdate() {}
+	
+	@Override
+	protected void entityInit() {}
+	
+	@Override
+	protected void readEntityFromNBT(NBTTagCompound compound) {}
+	
+	@Override
+	protected void writeEntityToNBT(NBTTagCompound compound) {}
+}
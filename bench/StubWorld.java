@@ -0,0 +1,149 @@
+package coolalias.skillsmod.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.minecraft.block.Block;
+import net.minecraft.entity.Entity;
+import net.minecraft.profiler.Profiler;
+import net.minecraft.util.Vec3Pool;
+import net.minecraft.world.ChunkPosition;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldProvider;
+import net.minecraft.world.WorldProviderSurface;
+import net.minecraft.world.WorldSettings;
+import net.minecraft.world.chunk.IChunkProvider;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Minimal World stand-in: flat terrain (stone below groundLevel, air above), a world time that
+ * only advances when tick is called, and a loaded entity list managed by the caller. No chunks
+ * unless a chunk provider is set, no lighting and no networking, so only code that goes through the overridden block queries
+ * and the fields set in create can be run against it.
+ *
+ */
+public class StubWorld extends World
+{
+	/** Blocks below this height are stone, everything else is air */
+	private int groundLevel;
+	
+	private long time;
+	
+	private Vec3Pool vec3Pool;
+	
+	/** Positions passed to notifyBlockOfNeighborChange, or null if not recording */
+	private List<ChunkPosition> neighborChanges;
+	
+	/** Never called; see create */
+	private StubWorld() { super(null, null, (WorldSettings) null, (WorldProvider) null, null, null); }
+	
+	/**
+	 * Returns a new stub world; 'remote' determines whether it acts as a client or server world
+	 */
+	public static StubWorld create(boolean remote, int groundLevel)
+	{
+		StubWorld world = Stubs.allocate(StubWorld.class);
+		Stubs.setField(world, World.class, "isRemote", remote);
+		Stubs.setField(world, World.class, "rand", new Random(0L));
+		Stubs.setField(world, World.class, "loadedEntityList", new ArrayList());
+		Stubs.setField(world, World.class, "worldAccesses", new ArrayList());
+		Stubs.setField(world, World.class, "theProfiler", new Profiler());
+		world.provider = new WorldProviderSurface();
+		world.groundLevel = groundLevel;
+		world.vec3Pool = new Vec3Pool(300, 2000);
+		return world;
+	}
+	
+	/** Advances the world time by one tick and clears the Vec3 pool, as the server does each tick */
+	public void tick() {
+		++time;
+		vec3Pool.clear();
+	}
+	
+	/** Records the position of every later call to notifyBlockOfNeighborChange in the list; neighbors are otherwise not notified */
+	public void recordNeighborChanges(List<ChunkPosition> list) { neighborChanges = list; }
+	
+	/** Adds the entity to the loaded entity list without any of World.spawnEntityInWorld's side effects */
+	public void addEntity(Entity entity) { loadedEntityList.add(entity); }
+	
+	/**
+	 * Updates every loaded entity the way World.updateEntities does (previous positions, ticks
+	 * existed, onUpdate), removes dead ones and advances the world time
+	 */
+	public void updateEntities()
+	{
+		for (int i = 0; i < loadedEntityList.size(); ++i)
+		{
+			Entity entity = (Entity) loadedEntityList.get(i);
+			if (entity.isDead) { continue; }
+			entity.lastTickPosX = entity.posX;
+			entity.lastTickPosY = entity.posY;
+			entity.lastTickPosZ = entity.posZ;
+			entity.prevRotationYaw = entity.rotationYaw;
+			entity.prevRotationPitch = entity.rotationPitch;
+			++entity.ticksExisted;
+			entity.onUpdate();
+		}
+		removeDeadEntities();
+		tick();
+	}
+	
+	/** Removes all dead entities from the loaded entity list */
+	public void removeDeadEntities()
+	{
+		for (int i = loadedEntityList.size() - 1; i >= 0; --i) {
+			if (((Entity) loadedEntityList.get(i)).isDead) { loadedEntityList.remove(i); }
+		}
+	}
+	
+	@Override
+	public boolean spawnEntityInWorld(Entity entity) {
+		addEntity(entity);
+		return true;
+	}
+	
+	@Override
+	public long getTotalWorldTime() { return time; }
+	
+	@Override
+	public long getWorldTime() { return time; }
+	
+	@Override
+	public Vec3Pool getWorldVec3Pool() { return vec3Pool; }
+	
+	@Override
+	public int getBlockId(int x, int y, int z) { return y >= 0 && y < groundLevel ? Block.stone.blockID : 0; }
+	
+	@Override
+	public int getBlockMetadata(int x, int y, int z) { return 0; }
+	
+	@Override
+	public boolean isAirBlock(int x, int y, int z) { return getBlockId(x, y, z) == 0; }
+	
+	@Override
+	public boolean blockExists(int x, int y, int z) { return y >= 0 && y < 256; }
+	
+	@Override
+	public boolean checkChunksExist(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) { return true; }
+	
+	@Override
+	public void notifyBlockOfNeighborChange(int x, int y, int z, int blockId) {
+		if (neighborChanges != null) { neighborChanges.add(new ChunkPosition(x, y, z)); }
+	}
+	
+	@Override
+	public Entity getEntityByID(int id)
+	{
+		for (int i = 0; i < loadedEntityList.size(); ++i) {
+			Entity entity = (Entity) loadedEntityList.get(i);
+			if (entity.entityId == id) { return entity; }
+		}
+		return null;
+	}
+	
+	@Override
+	protected IChunkProvider createChunkProvider() { return null; }
+}
@@ -0,0 +1,82 @@
+package coolalias.skillsmod.bench;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Helpers for building stand-ins for Minecraft objects (players, worlds) without running their
+ * constructors, which would need a running game. Instances are allocated the way serialization
+ * does it, through a constructor from the JDK's ReflectionFactory that only runs Object's
+ * constructor, and only the fields the skill code actually reads are filled in by reflection.
+ * ReflectionFactory is looked up by name, so nothing here refers to JDK internals at compile time.
+ * 
+ * Field names are the deobfuscated (MCP) names, so the benchmarks must be run against the
+ * deobfuscated Minecraft jar used for development.
+ *
+ */
+public final class Stubs
+{
+	/** sun.reflect.ReflectionFactory instance and its newConstructorForSerialization method */
+	private static final Object reflectionFactory;
+	private static final Method newConstructorForSerialization;
+	
+	static {
+		try {
+			Class<?> factory = Class.forName("sun.reflect.ReflectionFactory");
+			reflectionFactory = factory.getMethod("getReflectionFactory").invoke(null);
+			newConstructorForSerialization = factory.getMethod("newConstructorForSerialization", Class.class, Constructor.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	private Stubs() {}
+	
+	/**
+	 * Returns a new instance of the class without calling any constructor; all fields are zero / null
+	 */
+	public static <T> T allocate(Class<T> type)
+	{
+		try {
+			Constructor<?> constructor = (Constructor<?>) newConstructorForSerialization.invoke(reflectionFactory, type, Object.class.getDeclaredConstructor());
+			return type.cast(constructor.newInstance());
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("Unable to allocate stub " + type.getName(), e.getCause());
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to allocate stub " + type.getName(), e);
+		}
+	}
+	
+	/**
+	 * Sets the named field, declared in 'owner', on the object, even if private or final
+	 */
+	public static void setField(Object object, Class<?> owner, String name, Object value)
+	{
+		try {
+			Field field = owner.getDeclaredField(name);
+			field.setAccessible(true);
+			field.set(object, value);
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to set " + owner.getSimpleName() + "." + name, e);
+		}
+	}
+	
+	/**
+	 * Returns the value of the named field, declared in 'owner', on the object
+	 */
+	public static Object getField(Object object, Class<?> owner, String name)
+	{
+		try {
+			Field field = owner.getDeclaredField(name);
+			field.setAccessible(true);
+			return field.get(object);
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to get " + owner.getSimpleName() + "." + name, e);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+#!/bin/sh
+#
+# Compiles the mod and the tools in bench/ into build/bench, running the JMH annotation
+# processor, and optionally runs one of the tools from the same class path.
+#
+# There is no Gradle or Maven build, since the deobfuscated Minecraft/Forge 1.6.4 jars are not
+# published anywhere a build file could fetch them; point the environment at local copies:
+#
+#   MC   class path of the deobfuscated Minecraft/Forge jars and their libraries
+#   JMH  class path of jmh-core, jmh-generator-annprocess, jopt-simple and commons-math3
+#
+# Usage, from anywhere:
+#   bench/build.sh                              compile only
+#   bench/build.sh BenchmarkMain [regex]        compile, then run a tool in coolalias.skillsmod.bench
+#   bench/build.sh RankTreeCheck 200000 42
+#
+set -e
+
+cd "$(dirname "$0")/.."
+
+if [ -z "$MC" ] || [ -z "$JMH" ]; then
+	echo "Set MC to the Minecraft/Forge class path and JMH to the JMH class path; see bench/build.sh" >&2
+	exit 2
+fi
+
+OUT=build/bench
+rm -rf "$OUT"
+mkdir -p "$OUT"
+find src bench -name '*.java' > "$OUT/sources.txt"
+javac -encoding UTF-8 -cp "$MC:$JMH" -processorpath "$JMH" -d "$OUT" @"$OUT/sources.txt"
+
+if [ $# -gt 0 ]; then
+	TOOL=$1
+	shift
+	exec java -cp "$OUT:$MC:$JMH" "coolalias.skillsmod.bench.$TOOL" "$@"
+fi
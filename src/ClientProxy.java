@@ -1,6 +1,7 @@
 package coolalias.skillsmod;
 
 import net.minecraft.client.renderer.entity.RenderFireball;
+import net.minecraft.world.World;
 import coolalias.skillsmod.entity.skill.EntityFireBlast;
 import cpw.mods.fml.client.registry.RenderingRegistry;
 
@@ -15,4 +16,9 @@ public class ClientProxy extends CommonProxy
 	public void registerRenderers() {
 		RenderingRegistry.registerEntityRenderingHandler(EntityFireBlast.class, new RenderFireball(1.0F));
 	}
+	
+	@Override
+	public int getParticleAllowance(World world, double x, double y, double z, int requested) {
+		return world.isRemote ? ParticleBudget.getAllowance(world, x, y, z, requested) : 0;
+	}
 }
@@ -0,0 +1,198 @@
+package coolalias.skillsmod;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.ChatMessageComponent;
+import net.minecraftforge.common.DimensionManager;
+import coolalias.skillsmod.skills.SkillAttribute;
+import coolalias.skillsmod.util.SkillsProfiler;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Server admin command for inspecting the mod at run-time:
+ * /skills profile [on|off|reset|dump] - shows or controls the handler profiler (see SkillsProfiler)
+ * /skills xp <player> [seconds] - shows the player's XP by source: total, rate over the last
+ *   'seconds' (default and at most XpTelemetry.WINDOW) and peak per second (see XpTelemetry)
+ * /skills xp export [name] - writes the XP telemetry of all online players to <name>.dat (default
+ *   skillsmod-xp.dat) in the world save directory; names are limited to letters, digits, '-' and '_'
+ * /skills top [board] [count] - lists the highest ranked players on a leaderboard (see SkillLeaderboard)
+ * /skills rank <player> [board] - shows a player's rank on one or all leaderboards, online or not
+ *
+ */
+public class CommandSkills extends CommandBase
+{
+	/** Names accepted for each leaderboard */
+	private static final String[] BOARDS = { "str", "agi", "int", "cha", "total" };
+
+	/** Names allowed for XP telemetry exports; excludes path separators and '.' */
+	private static final Pattern EXPORT_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+	/** Maximum number of players listed by /skills top */
+	private static final int MAX_TOP = 50;
+
+	@Override
+	public String getCommandName() { return "skills"; }
+
+	@Override
+	public String getCommandUsage(ICommandSender sender) {
+		return "/skills <profile [on|off|reset|dump] | xp <player> [seconds] | xp export [name] | top [board] [count] | rank <player> [board]>";
+	}
+
+	@Override
+	public int getRequiredPermissionLevel() { return 2; }
+
+	@Override
+	public void processCommand(ICommandSender sender, String[] args)
+	{
+		if (args.length == 0) { throw new WrongUsageException(getCommandUsage(sender)); }
+		if (args[0].equals("profile")) { processProfile(sender, args); }
+		else if (args[0].equals("xp")) { processXp(sender, args); }
+		else if (args[0].equals("top")) { processTop(sender, args); }
+		else if (args[0].equals("rank")) { processRank(sender, args); }
+		else { throw new WrongUsageException(getCommandUsage(sender)); }
+	}
+
+	private void processProfile(ICommandSender sender, String[] args)
+	{
+		String action = args.length > 1 ? args[1] : "show";
+		if (action.equals("show")) {
+			List<String> lines = SkillsProfiler.getReport();
+			for (int i = 0; i < lines.size(); ++i) { send(sender, lines.get(i)); }
+		} else if (action.equals("on") || action.equals("off")) {
+			SkillsProfiler.setEnabled(action.equals("on"));
+			send(sender, "Profiler " + (SkillsProfiler.isEnabled() ? "timing all calls" : "sampling 1 call in " + SkillsProfiler.SAMPLE_RATE));
+		} else if (action.equals("reset")) {
+			SkillsProfiler.reset();
+			send(sender, "Profiler data cleared");
+		} else if (action.equals("dump")) {
+			boolean written = SkillsProfiler.writeReport(SkillsProfiler.getDumpFile());
+			send(sender, (written ? "Profile written to " : "Unable to write profile to ") + SkillsProfiler.getDumpFile().getAbsolutePath());
+		} else {
+			throw new WrongUsageException(getCommandUsage(sender));
+		}
+	}
+
+	private void processXp(ICommandSender sender, String[] args)
+	{
+		if (args.length < 2) { throw new WrongUsageException(getCommandUsage(sender)); }
+		long worldTime = sender.getEntityWorld().getTotalWorldTime();
+		if (args[1].equals("export")) {
+			String name = args.length > 2 ? args[2] : "skillsmod-xp";
+			// command blocks have this permission level too, so never write outside the save directory
+			if (!EXPORT_NAME.matcher(name).matches()) { throw new WrongUsageException("Export name may only contain letters, digits, '-' and '_'"); }
+			File file = new File(DimensionManager.getCurrentSaveRootDirectory(), name + ".dat");
+			try {
+				int count = exportXp(file, worldTime);
+				send(sender, "XP telemetry for " + count + " players written to " + file.getAbsolutePath());
+			} catch (IOException e) {
+				send(sender, "Unable to write XP telemetry to " + file.getAbsolutePath() + ": " + e.getMessage());
+			}
+			return;
+		}
+		EntityPlayer player = getPlayer(sender, args[1]);
+		int seconds = args.length > 2 ? parseIntBounded(sender, args[2], 1, XpTelemetry.WINDOW) : XpTelemetry.WINDOW;
+		XpTelemetry telemetry = SkillInfo.get(player).getXpTelemetry();
+		send(sender, "XP by source for " + player.username + ": total (grants), xp/s over " + seconds + "s, peak xp/s");
+		for (XpSource source : XpSource.values()) {
+			if (telemetry.getTotalGrants(source) > 0) {
+				send(sender, String.format("%s: %.2f (%d), %.3f, %.2f", source.name().toLowerCase(),
+						SkillAttribute.fromXpUnits(telemetry.getTotalUnits(source)), telemetry.getTotalGrants(source),
+						SkillAttribute.fromXpUnits(telemetry.getRecentUnits(source, seconds, worldTime)) / seconds,
+						SkillAttribute.fromXpUnits(telemetry.getPeakUnits(source, worldTime))));
+			}
+		}
+	}
+
+	/**
+	 * Writes the world time (long), number of players (int), then each online player's name (UTF)
+	 * followed by XpTelemetry.writeToStream; returns the number of players written
+	 */
+	private int exportXp(File file, long worldTime) throws IOException
+	{
+		List players = MinecraftServer.getServer().getConfigurationManager().playerEntityList;
+		DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			outputStream.writeLong(worldTime);
+			outputStream.writeInt(players.size());
+			for (int i = 0; i < players.size(); ++i) {
+				EntityPlayer player = (EntityPlayer) players.get(i);
+				outputStream.writeUTF(player.username);
+				SkillInfo.get(player).getXpTelemetry().writeToStream(outputStream, worldTime);
+			}
+			outputStream.flush();
+		} finally {
+			PacketHandler.closeStream(outputStream);
+		}
+		return players.size();
+	}
+
+	private void processTop(ICommandSender sender, String[] args)
+	{
+		int board = args.length > 1 ? parseBoard(sender, args[1]) : SkillLeaderboard.TOTAL;
+		int count = args.length > 2 ? parseIntBounded(sender, args[2], 1, MAX_TOP) : 10;
+		SkillLeaderboard leaderboard = SkillLeaderboard.get();
+		count = Math.min(count, leaderboard.size());
+		send(sender, "Top " + count + " of " + leaderboard.size() + " players by " + SkillLeaderboard.getBoardName(board) + " level:");
+		for (int rank = 1; rank <= count; ++rank) {
+			send(sender, rank + ". " + leaderboard.getNameAt(board, rank) + " (" + leaderboard.getLevelAt(board, rank) + ")");
+		}
+	}
+
+	private void processRank(ICommandSender sender, String[] args)
+	{
+		if (args.length < 2) { throw new WrongUsageException(getCommandUsage(sender)); }
+		SkillLeaderboard leaderboard = SkillLeaderboard.get();
+		String name = args[1];
+		if (leaderboard.getRank(name, SkillLeaderboard.TOTAL) == 0) {
+			send(sender, "No skills recorded for " + name);
+			return;
+		}
+		int first = args.length > 2 ? parseBoard(sender, args[2]) : 0;
+		int last = args.length > 2 ? first : SkillLeaderboard.NUM_BOARDS - 1;
+		for (int board = first; board <= last; ++board) {
+			send(sender, name + " is ranked " + leaderboard.getRank(name, board) + " of " + leaderboard.size() + " by " +
+					SkillLeaderboard.getBoardName(board) + " level (" + leaderboard.getLevel(name, board) + ")");
+		}
+	}
+
+	/** Returns the leaderboard index for the name, throwing a usage exception if there is none */
+	private int parseBoard(ICommandSender sender, String name)
+	{
+		int board = SkillLeaderboard.getBoard(name);
+		if (board < 0) { throw new WrongUsageException("Unknown leaderboard " + name + "; use one of str, agi, int, cha or total"); }
+		return board;
+	}
+
+	@Override
+	public List addTabCompletionOptions(ICommandSender sender, String[] args)
+	{
+		switch(args.length) {
+		case 1: return getListOfStringsMatchingLastWord(args, "profile", "xp", "top", "rank");
+		case 2:
+			if (args[0].equals("profile")) { return getListOfStringsMatchingLastWord(args, "on", "off", "reset", "dump"); }
+			if (args[0].equals("xp") || args[0].equals("rank")) { return getListOfStringsMatchingLastWord(args, MinecraftServer.getServer().getAllUsernames()); }
+			if (args[0].equals("top")) { return getListOfStringsMatchingLastWord(args, BOARDS); }
+			return null;
+		case 3: return args[0].equals("rank") ? getListOfStringsMatchingLastWord(args, BOARDS) : null;
+		default: return null;
+		}
+	}
+
+	/** Sends a line of plain text to the command sender */
+	protected static void send(ICommandSender sender, String message) {
+		sender.sendChatToPlayer(ChatMessageComponent.createFromText(message));
+	}
+}
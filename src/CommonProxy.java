@@ -19,6 +19,12 @@ public class CommonProxy implements IGuiHandler
 	private static final Map<String, NBTTagCompound> extendedEntityData = new HashMap<String, NBTTagCompound>();
 
 	public void registerRenderers() {}
+	
+	/**
+	 * Returns the number of particles, up to 'requested', a skill projectile should spawn this tick
+	 * at the given position; particles are never spawned on the server
+	 */
+	public int getParticleAllowance(World world, double x, double y, double z, int requested) { return 0; }
 
 	@Override
 	public Object getServerGuiElement(int guiId, EntityPlayer player, World world, int x, int y, int z)
@@ -45,4 +51,7 @@ public class CommonProxy implements IGuiHandler
 	public static NBTTagCompound getEntityData(String name) {
 		return extendedEntityData.remove(name);
 	}
+
+	/** Returns the number of entities whose data is currently stored; may be slightly stale if called off the server thread */
+	public static int getStoredEntityDataCount() { return extendedEntityData.size(); }
 }
@@ -0,0 +1,26 @@
+package coolalias.skillsmod;
+
+import net.minecraft.entity.player.EntityPlayer;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Implement and register with PacketHandler.addListener to see every skillsmod payload as it is
+ * sent or received, e.g. for statistics or tracing.
+ * 
+ * Methods are called on the network or game thread handling the packet; the data array is the
+ * actual payload and must not be modified.
+ *
+ */
+public interface IPacketListener
+{
+	/**
+	 * Called for each payload sent; player is the recipient for packets sent to a client, or the
+	 * sending player, if known, for packets sent to the server
+	 */
+	public void onPacketSent(EntityPlayer player, boolean toServer, byte[] data);
+	
+	/** Called for each payload received, before it is handled; player is the player it is from or for */
+	public void onPacketReceived(EntityPlayer player, boolean onServer, byte[] data);
+}
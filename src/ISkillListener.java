@@ -0,0 +1,42 @@
+package coolalias.skillsmod;
+
+import coolalias.skillsmod.skills.SkillActive;
+import coolalias.skillsmod.skills.SkillAttribute;
+import coolalias.skillsmod.skills.SkillBase;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Implement and register with SkillEvents to be notified of changes to a player's skills
+ * instead of polling SkillInfo. Extend SkillListenerAdapter to only override the methods needed.
+ * 
+ * Methods are called on the thread making the change, immediately after the change occurs
+ * and SkillInfo is consistent again, so they should be quick and must not modify the skills
+ * being reported.
+ *
+ */
+public interface ISkillListener
+{
+	/**
+	 * Called when an attribute's xp changes; server only, as the client receives xp from the
+	 * server. Amounts are in fixed-point units (see SkillAttribute.XP_UNIT)
+	 */
+	public void onXpChanged(SkillInfo info, SkillAttribute attribute, long oldXp, long newXp);
+	
+	/**
+	 * Called each time any skill, including attributes, increases in level, once SkillInfo holds
+	 * the skill and character level and skill points are up to date. Attributes increase one level
+	 * per call. Called on both sides wherever skills are granted, so check info.getPlayer().worldObj.isRemote
+	 */
+	public void onLevelChanged(SkillInfo info, SkillBase skill, int oldLevel, int newLevel);
+	
+	/** Called when a skill reaches its first level, just after onLevelChanged */
+	public void onSkillLearned(SkillInfo info, SkillBase skill);
+	
+	/** Called when an active skill is used and begins cooling down for the given number of ticks */
+	public void onCooldownStart(SkillInfo info, SkillActive skill, int ticks);
+	
+	/** Called when an active skill's cooldown reaches zero */
+	public void onCooldownEnd(SkillInfo info, SkillActive skill);
+}
@@ -10,7 +10,12 @@ import java.io.IOException;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.network.INetworkManager;
 import net.minecraft.network.packet.Packet250CustomPayload;
+import coolalias.skillsmod.skills.SkillAttribute;
 import coolalias.skillsmod.skills.SkillBase;
+import coolalias.skillsmod.util.SkillsLog;
+import coolalias.skillsmod.util.SkillsLog.Category;
+import coolalias.skillsmod.util.SkillsProfiler;
+import coolalias.skillsmod.util.SkillsProfiler.Section;
 import cpw.mods.fml.common.network.IPacketHandler;
 import cpw.mods.fml.common.network.PacketDispatcher;
 import cpw.mods.fml.common.network.Player;
@@ -24,10 +29,50 @@ public class PacketHandler implements IPacketHandler
 {
 	/** Defining packet ids allow for subtypes of Packet250CustomPayload all on single channel */
 	public static final byte SYNC_PLAYER_INFO = 1, OPEN_SERVER_GUI = 2, ADD_XP = 3, UPDATE_ATTRIBUTE = 4;
+	
+	/**
+	 * Most xp units accepted from a single addXP packet; the client sends its buffer as soon as it passes
+	 * 0.01 Xp, so even the largest single grant (SkillsHandler.XP_HIGH) stays well below this
+	 */
+	private static final long MAX_CLIENT_XP_UNITS = 10L * SkillAttribute.XP_UNIT;
+	
+	/** Registered packet listeners; replaced, never modified, when listeners are added or removed */
+	private static volatile IPacketListener[] listeners = new IPacketListener[0];
+	
+	/**
+	 * Adds a listener to be notified of every payload sent or received; may be called at any time
+	 */
+	public static synchronized void addListener(IPacketListener listener)
+	{
+		IPacketListener[] array = new IPacketListener[listeners.length + 1];
+		System.arraycopy(listeners, 0, array, 0, listeners.length);
+		array[listeners.length] = listener;
+		listeners = array;
+	}
+	
+	/** Removes a previously added listener */
+	public static synchronized void removeListener(IPacketListener listener)
+	{
+		for (int i = 0; i < listeners.length; ++i) {
+			if (listeners[i] == listener) {
+				IPacketListener[] array = new IPacketListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, array, 0, i);
+				System.arraycopy(listeners, i + 1, array, i, array.length - i);
+				listeners = array;
+				return;
+			}
+		}
+	}
 
 	@Override
 	public void onPacketData(INetworkManager manager, Packet250CustomPayload packet, Player player)
 	{
+		IPacketListener[] current = listeners;
+		if (current.length > 0 && packet.channel.equals("skillsmod")) {
+			boolean onServer = !((EntityPlayer) player).worldObj.isRemote;
+			for (int i = 0; i < current.length; ++i) { current[i].onPacketReceived((EntityPlayer) player, onServer, packet.data); }
+		}
+		
 		ByteArrayInputStream bis = new ByteArrayInputStream(packet.data);
 		DataInputStream inputStream = new DataInputStream(bis);
 		
@@ -42,18 +87,36 @@ public class PacketHandler implements IPacketHandler
 
 		if (packet.channel.equals("skillsmod"))
 		{
-			switch(packetType) {
-			case SYNC_PLAYER_INFO: handleSyncPlayerInfo(player, inputStream); break;
-			case OPEN_SERVER_GUI: handleOpenGuiPacket((EntityPlayer) player, inputStream); break;
-			case ADD_XP: handleAddXpPacket((EntityPlayer) player, inputStream); break;
-			case UPDATE_ATTRIBUTE: handleUpdateAttribute((EntityPlayer) player, inputStream); break;
-			default: System.out.println("[PACKET][WARNING] Unknown packet type " + packetType);
+			Section section = getProfilerSection(packetType);
+			long start = SkillsProfiler.start(section);
+			try {
+				switch(packetType) {
+				case SYNC_PLAYER_INFO: handleSyncPlayerInfo(player, inputStream); break;
+				case OPEN_SERVER_GUI: handleOpenGuiPacket((EntityPlayer) player, inputStream); break;
+				case ADD_XP: handleAddXpPacket((EntityPlayer) player, inputStream); break;
+				case UPDATE_ATTRIBUTE: handleUpdateAttribute((EntityPlayer) player, inputStream); break;
+				default: SkillsLog.warning(Category.PACKET, "Unknown packet type " + packetType);
+				}
+			} finally {
+				SkillsProfiler.end(section, start);
 			}
 		}
 		
 		closeStream(bis);
 	}
 	
+	/** Returns the profiler section under which packets of this type are timed */
+	private static Section getProfilerSection(byte packetType)
+	{
+		switch(packetType) {
+		case SYNC_PLAYER_INFO: return Section.PACKET_SYNC_PLAYER_INFO;
+		case OPEN_SERVER_GUI: return Section.PACKET_OPEN_SERVER_GUI;
+		case ADD_XP: return Section.PACKET_ADD_XP;
+		case UPDATE_ATTRIBUTE: return Section.PACKET_UPDATE_ATTRIBUTE;
+		default: return Section.PACKET_UNKNOWN;
+		}
+	}
+	
 	/**
 	 * Closes an input or output stream
 	 */
@@ -86,7 +149,7 @@ public class PacketHandler implements IPacketHandler
 			closeStream(bos);
 		}
 		
-		PacketDispatcher.sendPacketToServer(PacketDispatcher.getPacket("skillsmod", bos.toByteArray()));
+		sendToServer(null, bos.toByteArray());
 	}
 	
 	/**
@@ -107,14 +170,14 @@ public class PacketHandler implements IPacketHandler
 			closeStream(bos);
 		}
 
-		PacketDispatcher.sendPacketToPlayer(PacketDispatcher.getPacket("skillsmod", bos.toByteArray()), (Player) player);
+		sendToPlayer(player, bos.toByteArray());
 	}
 	
 	public static final void sendAttributePacket(EntityPlayer player, SkillBase attribute)
 	{
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
 		DataOutputStream outputStream = new DataOutputStream(bos);
-		System.out.println("Sending attribute update packet for " + attribute.name);
+		if (SkillsLog.isDebug(Category.PACKET)) { SkillsLog.debug(Category.PACKET, "Sending attribute update packet for " + attribute.name); }
 		try {
 			outputStream.writeByte(UPDATE_ATTRIBUTE);
 			attribute.writeToStream(outputStream);
@@ -125,17 +188,20 @@ public class PacketHandler implements IPacketHandler
 			closeStream(bos);
 		}
 
-		PacketDispatcher.sendPacketToPlayer(PacketDispatcher.getPacket("skillsmod", bos.toByteArray()), (Player) player);
+		sendToPlayer(player, bos.toByteArray());
 	}
 	
-	public static final void sendAddXpPacket(EntityPlayer player, float amount, byte id)
+	/**
+	 * Sends an amount of fixed-point Xp units (see SkillAttribute.XP_UNIT) from the client to the server
+	 */
+	public static final void sendAddXpPacket(EntityPlayer player, long amount, byte id)
 	{
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
 		DataOutputStream outputStream = new DataOutputStream(bos);
 
 		try {
 			outputStream.writeByte(ADD_XP);
-			outputStream.writeFloat(amount);
+			outputStream.writeLong(amount);
 			outputStream.writeByte(id);
 		} catch (Exception ex) {
 			ex.printStackTrace();
@@ -144,13 +210,34 @@ public class PacketHandler implements IPacketHandler
 			closeStream(bos);
 		}
 		
-		if (player.worldObj.isRemote) PacketDispatcher.sendPacketToServer(PacketDispatcher.getPacket("skillsmod", bos.toByteArray()));
+		if (player.worldObj.isRemote) sendToServer(player, bos.toByteArray());
 		else {
-			System.out.println("WARNING: Sending addXP packet from server to client... shouldn't be happening");
+			SkillsLog.warning(Category.PACKET, "Sending addXP packet from server to client... shouldn't be happening");
 			//PacketDispatcher.sendPacketToPlayer(PacketDispatcher.getPacket("skillsmod", bos.toByteArray()), (Player) player);
 		}
 	}
 
+	/**
+	 * Sends the payload to the player on the skillsmod channel, notifying any listeners
+	 */
+	private static void sendToPlayer(EntityPlayer player, byte[] data)
+	{
+		IPacketListener[] current = listeners;
+		for (int i = 0; i < current.length; ++i) { current[i].onPacketSent(player, false, data); }
+		PacketDispatcher.sendPacketToPlayer(PacketDispatcher.getPacket("skillsmod", data), (Player) player);
+	}
+	
+	/**
+	 * Sends the payload to the server on the skillsmod channel, notifying any listeners;
+	 * player is only passed on to the listeners and may be null
+	 */
+	private static void sendToServer(EntityPlayer player, byte[] data)
+	{
+		IPacketListener[] current = listeners;
+		for (int i = 0; i < current.length; ++i) { current[i].onPacketSent(player, true, data); }
+		PacketDispatcher.sendPacketToServer(PacketDispatcher.getPacket("skillsmod", data));
+	}
+
 	/**
 	 * Handles extended properties packets; note that DataInputStream is now a parameter and not opened
 	 * from within the method (unlike in the IExtendedEntityProperties tutorial)
@@ -168,12 +255,17 @@ public class PacketHandler implements IPacketHandler
 	
 	private void handleAddXpPacket(EntityPlayer player, DataInputStream inputStream)
 	{
-		if (player.worldObj.isRemote) System.out.println("WARNING: addXP packet received on client side!!!");
-		else System.out.println("Handling addXP packet on the server");
+		if (player.worldObj.isRemote) SkillsLog.warning(Category.PACKET, "addXP packet received on client side!!!");
+		else if (SkillsLog.isDebug(Category.PACKET)) SkillsLog.debug(Category.PACKET, "Handling addXP packet on the server");
 		try {
-			float amount = inputStream.readFloat();
+			long amount = inputStream.readLong();
 			byte id = inputStream.readByte();
-			SkillInfo.get(player).addXp(amount, id);
+			// never trust the client: it only ever sends small buffered amounts
+			if (amount < 0L || amount > MAX_CLIENT_XP_UNITS) {
+				SkillsLog.warning(Category.PACKET, player.username + " sent an addXP packet with " + amount + " xp units; clamping to " + MAX_CLIENT_XP_UNITS);
+				amount = Math.max(0L, Math.min(amount, MAX_CLIENT_XP_UNITS));
+			}
+			SkillInfo.get(player).addXpUnits(amount, id, XpSource.CLIENT);
 		} catch (IOException e) {
 			e.printStackTrace();
 		} finally {
@@ -0,0 +1,188 @@
+package coolalias.skillsmod;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraft.entity.player.EntityPlayer;
+import coolalias.skillsmod.util.SkillsLog;
+import coolalias.skillsmod.util.SkillsLog.Category;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Opt-in recorder writing every skillsmod payload sent or received to a compact binary trace
+ * file, for replaying offline (see PacketTraceReplay in the benchmarks). Enable by starting the
+ * game or server with -Dskillsmod.packetTrace=<file>, or call start and stop directly.
+ * 
+ * File format: MAGIC, VERSION (int), start time (long, milliseconds since the epoch), then one
+ * record per payload:
+ * - flags (byte): FLAG_SENT if sent rather than received, FLAG_SERVER if on the server side
+ * - time since the previous record, in microseconds (varint)
+ * - player index (varint), 0 if none; a player's first record uses the next free index and is
+ *   followed by the player's name (UTF)
+ * - payload length (varint), then the payload itself, whose first byte is the packet type
+ *
+ */
+public class PacketTraceRecorder implements IPacketListener
+{
+	public static final int MAGIC = 0x534D5054, VERSION = 1;
+	
+	public static final byte FLAG_SENT = 1, FLAG_SERVER = 2;
+	
+	/** The recorder currently running, if any */
+	private static PacketTraceRecorder current;
+	
+	private final DataOutputStream out;
+	
+	/** Index of each player name seen so far; indices start at 1 */
+	private final Map<String, Integer> players = new HashMap<String, Integer>();
+	
+	private long lastTime = System.nanoTime();
+	
+	private long records = 0L;
+	
+	/** Set once the file is closed; payloads still in flight to this listener are then ignored */
+	private boolean closed;
+	
+	private PacketTraceRecorder(File file) throws IOException
+	{
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(System.currentTimeMillis());
+	}
+	
+	/**
+	 * Starts recording if the 'skillsmod.packetTrace' system property is set; called from SkillsMod.preInit
+	 */
+	public static void startFromProperty()
+	{
+		String path = System.getProperty("skillsmod.packetTrace");
+		if (path != null && path.length() > 0) {
+			start(new File(path));
+			Runtime.getRuntime().addShutdownHook(new Thread("SkillsMod Packet Trace") {
+				@Override
+				public void run() { stop(); }
+			});
+		}
+	}
+	
+	/**
+	 * Starts recording all payloads to the file, replacing it, and stopping any current recording
+	 * first; returns false if the file could not be opened
+	 */
+	public static synchronized boolean start(File file)
+	{
+		stop();
+		try {
+			current = new PacketTraceRecorder(file);
+		} catch (IOException e) {
+			SkillsLog.severe(Category.PACKET, "Unable to open packet trace file " + file + ": " + e);
+			return false;
+		}
+		PacketHandler.addListener(current);
+		SkillsLog.info(Category.PACKET, "Recording packet trace to " + file);
+		return true;
+	}
+	
+	/** Stops the current recording, if any, and closes the file */
+	public static synchronized void stop()
+	{
+		if (current == null) { return; }
+		PacketHandler.removeListener(current);
+		current.close();
+		SkillsLog.info(Category.PACKET, "Packet trace stopped after " + current.records + " records");
+		current = null;
+	}
+	
+	/** Returns true if a trace is currently being recorded */
+	public static synchronized boolean isRecording() { return current != null; }
+	
+	@Override
+	public void onPacketSent(EntityPlayer player, boolean toServer, byte[] data) {
+		record((byte) (FLAG_SENT | (toServer ? 0 : FLAG_SERVER)), player, data);
+	}
+	
+	@Override
+	public void onPacketReceived(EntityPlayer player, boolean onServer, byte[] data) {
+		record(onServer ? FLAG_SERVER : 0, player, data);
+	}
+	
+	/**
+	 * Writes the record; on failure stops the recording, outside this instance's lock since
+	 * stop takes the class lock first
+	 */
+	private void record(byte flags, EntityPlayer player, byte[] data)
+	{
+		if (!write(flags, player, data)) {
+			SkillsLog.severe(Category.PACKET, "Recording stopped after an error writing the packet trace");
+			stop(this);
+		}
+	}
+	
+	/** Stops the recording if this recorder is still the current one, or else just makes sure its file is closed */
+	private static synchronized void stop(PacketTraceRecorder recorder)
+	{
+		if (recorder == current) { stop(); }
+		else { recorder.close(); }
+	}
+	
+	/** Writes one record; returns false if writing failed */
+	private synchronized boolean write(byte flags, EntityPlayer player, byte[] data)
+	{
+		if (closed) { return true; }
+		long now = System.nanoTime();
+		try {
+			out.writeByte(flags);
+			writeVarLong(out, Math.max(now - lastTime, 0L) / 1000L);
+			if (player == null) {
+				writeVarLong(out, 0L);
+			} else {
+				Integer index = players.get(player.username);
+				if (index == null) {
+					index = players.size() + 1;
+					players.put(player.username, index);
+					writeVarLong(out, index);
+					out.writeUTF(player.username);
+				} else {
+					writeVarLong(out, index);
+				}
+			}
+			writeVarLong(out, data.length);
+			out.write(data);
+			++records;
+		} catch (IOException e) {
+			SkillsLog.severe(Category.PACKET, "Error writing packet trace: " + e);
+			return false;
+		}
+		lastTime = now;
+		return true;
+	}
+	
+	private synchronized void close()
+	{
+		if (closed) { return; }
+		closed = true;
+		try {
+			out.close();
+		} catch (IOException e) {
+			SkillsLog.warning(Category.PACKET, "Error closing packet trace: " + e);
+		}
+	}
+	
+	/** Writes a non-negative value 7 bits at a time, low bits first */
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException
+	{
+		while ((value & ~0x7FL) != 0L) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+}
@@ -0,0 +1,102 @@
+package coolalias.skillsmod;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.World;
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Client-side limit on the number of particles spawned by skill projectiles. Each request is
+ * scaled down by distance from the viewer (and the player's particle setting), dropped entirely
+ * if outside a cone around the view direction that contains the whole view, and capped by a
+ * budget shared by all projectiles, so that dozens of projectiles on screen don't flood the
+ * particle renderer.
+ * 
+ * The budget is reset once per client tick rather than once per frame: projectiles only spawn
+ * particles from their onUpdate, which runs once per tick, so no particles are requested between
+ * ticks and a per-frame budget would come to the same thing. The cone is not an exact frustum
+ * test; it is widened by SPREAD, so particles at the edges of the screen and FOV changes such as
+ * sprinting are never culled, at the cost of keeping a few particles just off screen.
+ * 
+ * Access through SkillsMod.proxy.getParticleAllowance so that common code never loads this class.
+ *
+ */
+@SideOnly(Side.CLIENT)
+public final class ParticleBudget
+{
+	/** Maximum number of particles all skill projectiles may spawn in a single tick */
+	public static final int MAX_PER_TICK = 96;
+	
+	/** Squared distances beyond which the number of particles is halved, quartered, or none are spawned */
+	private static final double NEAR = 16.0D * 16.0D, MID = 32.0D * 32.0D, FAR = 64.0D * 64.0D;
+	
+	/** Particles closer than this are always spawned even if outside the view */
+	private static final double BEHIND_MIN = 4.0D * 4.0D;
+	
+	/** Factor by which the tangent of the view cone's half-angle is widened */
+	private static final double SPREAD = 1.25D;
+	
+	/** Cosine of the view cone's half-angle, computed once per tick from the FOV setting and window size */
+	private static double cosViewCone;
+	
+	private static long lastTick = Long.MIN_VALUE;
+	
+	private static int remaining = MAX_PER_TICK;
+	
+	private ParticleBudget() {}
+	
+	/**
+	 * Returns the number of particles, up to 'requested', that should actually be spawned at
+	 * this position, and deducts them from the current tick's budget
+	 */
+	public static int getAllowance(World world, double x, double y, double z, int requested)
+	{
+		Minecraft mc = Minecraft.getMinecraft();
+		EntityLivingBase viewer = mc.renderViewEntity;
+		if (viewer == null || requested <= 0 || mc.gameSettings.particleSetting > 1) { return 0; }
+		
+		long tick = world.getTotalWorldTime();
+		if (tick != lastTick) {
+			lastTick = tick;
+			remaining = MAX_PER_TICK;
+			cosViewCone = getCosViewCone(mc);
+		}
+		if (remaining <= 0) { return 0; }
+		
+		double dx = x - viewer.posX, dy = y - viewer.posY, dz = z - viewer.posZ;
+		double distSq = dx * dx + dy * dy + dz * dz;
+		if (distSq > FAR) { return 0; }
+		
+		if (distSq > BEHIND_MIN) {
+			// dot product with the view direction, computed from yaw and pitch as in Entity.getLook
+			float cosPitch = MathHelper.cos(-viewer.rotationPitch * 0.017453292F);
+			double lookX = -MathHelper.sin(-viewer.rotationYaw * 0.017453292F - (float) Math.PI) * cosPitch;
+			double lookY = MathHelper.sin(-viewer.rotationPitch * 0.017453292F);
+			double lookZ = -MathHelper.cos(-viewer.rotationYaw * 0.017453292F - (float) Math.PI) * cosPitch;
+			if (dx * lookX + dy * lookY + dz * lookZ < cosViewCone * Math.sqrt(distSq)) { return 0; }
+		}
+		
+		int shift = (distSq > MID ? 2 : distSq > NEAR ? 1 : 0) + mc.gameSettings.particleSetting;
+		int allowed = Math.min(Math.max(requested >> shift, 1), remaining);
+		remaining -= allowed;
+		return allowed;
+	}
+	
+	/**
+	 * Returns the cosine of the half-angle of the smallest cone around the view direction that
+	 * holds the corners of the view, widened by SPREAD
+	 */
+	private static double getCosViewCone(Minecraft mc)
+	{
+		// same vertical FOV as EntityRenderer.getFOVModifier, before potion and sprint effects
+		double tanHalf = Math.tan(Math.toRadians(70.0F + mc.gameSettings.fovSetting * 40.0F) * 0.5D);
+		double aspect = mc.displayHeight > 0 ? (double) mc.displayWidth / (double) mc.displayHeight : 1.0D;
+		double tanCorner = tanHalf * Math.sqrt(1.0D + aspect * aspect) * SPREAD;
+		return 1.0D / Math.sqrt(1.0D + tanCorner * tanCorner);
+	}
+}
@@ -0,0 +1,59 @@
+package coolalias.skillsmod;
+
+import coolalias.skillsmod.skills.SkillActive;
+import coolalias.skillsmod.skills.SkillAttribute;
+import coolalias.skillsmod.skills.SkillBase;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Dispatches skill state changes to all registered ISkillListeners.
+ * 
+ * Listeners must be registered during mod loading (preInit or init); the listener array is
+ * frozen in postInit, after which dispatch simply iterates a fixed array and allocates nothing.
+ *
+ */
+public final class SkillEvents
+{
+	private static ISkillListener[] listeners = new ISkillListener[0];
+	
+	private static boolean frozen = false;
+	
+	private SkillEvents() {}
+	
+	/**
+	 * Registers a listener; throws IllegalStateException if called after postInit
+	 */
+	public static void register(ISkillListener listener)
+	{
+		if (frozen) { throw new IllegalStateException("Skill listeners must be registered before postInit"); }
+		ISkillListener[] array = new ISkillListener[listeners.length + 1];
+		System.arraycopy(listeners, 0, array, 0, listeners.length);
+		array[listeners.length] = listener;
+		listeners = array;
+	}
+	
+	/** Prevents any further listeners from being registered; called from SkillsMod.postInit */
+	public static void freeze() { frozen = true; }
+	
+	public static void postXpChanged(SkillInfo info, SkillAttribute attribute, long oldXp, long newXp) {
+		for (int i = 0; i < listeners.length; ++i) { listeners[i].onXpChanged(info, attribute, oldXp, newXp); }
+	}
+	
+	public static void postLevelChanged(SkillInfo info, SkillBase skill, int oldLevel, int newLevel)
+	{
+		for (int i = 0; i < listeners.length; ++i) { listeners[i].onLevelChanged(info, skill, oldLevel, newLevel); }
+		if (oldLevel == 0) {
+			for (int i = 0; i < listeners.length; ++i) { listeners[i].onSkillLearned(info, skill); }
+		}
+	}
+	
+	public static void postCooldownStart(SkillInfo info, SkillActive skill, int ticks) {
+		for (int i = 0; i < listeners.length; ++i) { listeners[i].onCooldownStart(info, skill, ticks); }
+	}
+	
+	public static void postCooldownEnd(SkillInfo info, SkillActive skill) {
+		for (int i = 0; i < listeners.length; ++i) { listeners[i].onCooldownEnd(info, skill); }
+	}
+}
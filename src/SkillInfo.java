@@ -16,6 +16,10 @@ import coolalias.skillsmod.skills.SkillAttribute;
 import coolalias.skillsmod.skills.SkillActive;
 import coolalias.skillsmod.skills.SkillBase;
 import coolalias.skillsmod.skills.SkillBase.AttributeCode;
+import coolalias.skillsmod.util.SkillsLog;
+import coolalias.skillsmod.util.SkillsLog.Category;
+import coolalias.skillsmod.util.SkillsProfiler;
+import coolalias.skillsmod.util.SkillsProfiler.Section;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -39,6 +43,9 @@ public class SkillInfo implements IExtendedEntityProperties
 	
 	private final EntityPlayer player;
 	
+	/** Collects chat notifications during the tick so they can be sent as a single message */
+	private final SkillNotifier notifier;
+	
 	/** Keeps track of total character level (sum of all Attribute levels) */
 	private byte totalLevel = 0;
 	
@@ -47,10 +54,33 @@ public class SkillInfo implements IExtendedEntityProperties
 	
 	/** Keeps track of global cooldown, if any */
 	private int globalCooldown = 0;
+	
+	/** Samples the per-tick global cooldown debug message */
+	private static final SkillsLog.Sampler COOLDOWN_LOG = new SkillsLog.Sampler(20);
+	
+	/** Number of ticks a sustained activity must accumulate before being converted into a single XP grant */
+	public static final int ACTIVITY_INTERVAL = 20;
+	
+	/** Xp units granted per tick of sustained activity */
+	private static final long ACTIVITY_XP_UNITS = SkillAttribute.toXpUnits(SkillsHandler.XP_LOW * SkillsHandler.XP_TICK);
+	
+	/** Ticks of sustained activity (sprinting, swimming, etc.) accumulated per attribute since the last grant */
+	private final int[] activityTicks = new int[SkillBase.NUM_ATTRIBUTES];
+	
+	/** Source of the activity counted for each attribute, so that pending ticks can be granted when saving */
+	private final XpSource[] activitySources = new XpSource[SkillBase.NUM_ATTRIBUTES];
+	
+	/** Record of XP granted by each source; server side only */
+	private final XpTelemetry telemetry;
+	
+	/** True if skills have changed since the last snapshot was published (see SkillSnapshots) */
+	private boolean snapshotDirty = false;
 
 	public SkillInfo(EntityPlayer player)
 	{
 		this.player = player;
+		this.notifier = new SkillNotifier(player);
+		this.telemetry = player.worldObj.isRemote ? null : new XpTelemetry();
 		
 		for (int i = 0; i < SkillBase.NUM_ATTRIBUTES; ++i)
 			baseSkills.put(SkillBase.skillsList[i].id, SkillBase.skillsList[i].newInstance());
@@ -58,12 +88,24 @@ public class SkillInfo implements IExtendedEntityProperties
 		if (player.worldObj.isRemote) { initXpBuffer(); }
 	}
 	
-	/** Returns a copy of this player's base skills map */
+	/** Returns the player these properties belong to */
+	public EntityPlayer getPlayer() { return player; }
+	
+	/** Returns the record of XP granted to this player by each source; null on the client */
+	public XpTelemetry getXpTelemetry() { return telemetry; }
+	
+	/** Returns this player's notification queue; messages are sent once per tick */
+	public SkillNotifier getNotifier() { return notifier; }
+	
+	/** Returns a copy of this player's base skills map; other threads should use SkillSnapshots instead */
 	public Map<Byte, SkillBase> getBaseSkills() { return new HashMap<Byte, SkillBase>(baseSkills); }
 	
 	/** Returns a copy of this player's active skills map */
 	public Map<Byte, SkillActive> getActiveSkills() { return new HashMap<Byte, SkillActive>(activeSkills); }
 	
+	/** Returns the number of skill instances, including attributes, held by this player */
+	public int getNumSkills() { return baseSkills.size() + activeSkills.size(); }
+	
 	/** Returns true if the player has at least one level in the specified skill (of any class) */
 	public boolean hasSkill(byte id) { return baseSkills.containsKey(id) || activeSkills.containsKey(id); }
 	
@@ -83,10 +125,27 @@ public class SkillInfo implements IExtendedEntityProperties
 	{
 		Map map = SkillBase.skillsList[id] instanceof SkillActive ? activeSkills : baseSkills;
 		SkillBase skill = map.containsKey(id) ? (SkillBase) map.get(id) : SkillBase.skillsList[id].newInstance();
-		if (skill.grantSkill(player, targetLevel)) { map.put(id, skill);  return true; }
+		int oldLevel = skill.getLevel();
+		if (skill.grantSkill(player, targetLevel)) {
+			map.put(id, skill);
+			markSnapshotDirty();
+			levelChanged(skill, oldLevel);
+			return true;
+		}
 		return false;
 	}
 	
+	/**
+	 * Reports a skill's increase in level to the notifier and listeners; called once the skill
+	 * is stored and character level and skill points are up to date
+	 */
+	private void levelChanged(SkillBase skill, int oldLevel)
+	{
+		// TODO integrate into HUD
+		notifier.levelChanged(skill, oldLevel, skill.getLevel());
+		SkillEvents.postLevelChanged(this, skill, oldLevel, skill.getLevel());
+	}
+	
 	/** Returns true if the player successfully activated his/her skill */
 	public boolean activateSkill(World world, SkillActive skill) { return activateSkill(world, skill.id); }
 	
@@ -121,6 +180,7 @@ public class SkillInfo implements IExtendedEntityProperties
 	{
 		if (skillPoints > 0) {
 			--skillPoints;
+			markSnapshotDirty();
 			return true;
 		}
 		return false;
@@ -129,10 +189,33 @@ public class SkillInfo implements IExtendedEntityProperties
 	/** Adds Xp amount to the corresponding attribute by enum type */
 	public void addXp(float amount, AttributeCode attribute) { addXp(amount, (byte) attribute.ordinal()); }
 	
+	/** Adds Xp amount from the given source to the corresponding attribute by enum type */
+	public void addXp(float amount, AttributeCode attribute, XpSource source) { addXp(amount, (byte) attribute.ordinal(), source); }
+	
 	/**
 	 * Adds Xp amount to the corresponding attribute by id (ordinal position in the enum type)
 	 */
-	public void addXp(float amount, byte id) throws IllegalArgumentException
+	public void addXp(float amount, byte id) throws IllegalArgumentException {
+		addXpUnits(SkillAttribute.toXpUnits(amount), id);
+	}
+	
+	/**
+	 * Adds Xp amount from the given source to the corresponding attribute by id (ordinal position in the enum type)
+	 */
+	public void addXp(float amount, byte id, XpSource source) throws IllegalArgumentException {
+		addXpUnits(SkillAttribute.toXpUnits(amount), id, source);
+	}
+	
+	/**
+	 * Adds amount of fixed-point Xp units (see SkillAttribute.XP_UNIT) to the corresponding attribute by id
+	 */
+	public void addXpUnits(long amount, byte id) throws IllegalArgumentException { addXpUnits(amount, id, XpSource.OTHER); }
+	
+	/**
+	 * Adds amount of fixed-point Xp units (see SkillAttribute.XP_UNIT) from the given source to the
+	 * corresponding attribute by id; the source is only recorded on the server
+	 */
+	public void addXpUnits(long amount, byte id, XpSource source) throws IllegalArgumentException
 	{
 		if (id < SkillBase.NUM_ATTRIBUTES && baseSkills.containsKey(id))
 		{
@@ -140,9 +223,14 @@ public class SkillInfo implements IExtendedEntityProperties
 				addClientXp(amount, id);
 			} else {
 				SkillAttribute attribute = (SkillAttribute) baseSkills.get(id);
+				long oldXp = attribute.getXpUnits();
+				SkillsMetrics.recordXp(id, amount);
+				telemetry.record(source, amount, player.worldObj.getTotalWorldTime());
 				attribute.addXp(player, amount);
+				if (attribute.getXpUnits() != oldXp) { SkillEvents.postXpChanged(this, attribute, oldXp, attribute.getXpUnits()); }
 				PacketHandler.sendAttributePacket(player, attribute);
 				baseSkills.put(id, attribute);
+				markSnapshotDirty();
 			}
 		} else {
 			throw new IllegalArgumentException("SEVERE: ID value of " + id + " is not a valid attribute id!");
@@ -150,47 +238,74 @@ public class SkillInfo implements IExtendedEntityProperties
 	}
 	
 	/**
-	 * Called each time character level increases (i.e. an Attribute increases in level)
+	 * Tracks sustained activities such as sprinting or swimming for the given attribute; should be
+	 * called every tick. Active ticks are counted and converted into one XP grant every
+	 * ACTIVITY_INTERVAL ticks, or as soon as the activity stops, rather than adding XP each tick.
+	 * Ticks still pending when the player's data is saved (logout, death) are granted then.
+	 * Each attribute should only be fed by one source.
 	 */
-	public void levelUp()
+	public void updateActivity(AttributeCode attribute, XpSource source, boolean active)
+	{
+		int id = attribute.ordinal();
+		activitySources[id] = source;
+		if (active && ++activityTicks[id] < ACTIVITY_INTERVAL) { return; }
+		grantActivity(id);
+	}
+	
+	/** Converts any ticks of activity accumulated for the attribute into XP */
+	private void grantActivity(int id)
+	{
+		if (activityTicks[id] > 0) {
+			long amount = activityTicks[id] * ACTIVITY_XP_UNITS;
+			activityTicks[id] = 0;
+			addXpUnits(amount, (byte) id, activitySources[id]);
+		}
+	}
+	
+	/**
+	 * Called each time character level increases (i.e. an Attribute increases in level by one)
+	 */
+	public void levelUp(SkillBase attribute)
 	{
 		// TODO since this is a public method, check that character level has really increased via attributes
 		// i.e. if (getCharacterLevel() < calculateCharacterLevel())
 		++totalLevel;
 		if (totalLevel <= MAX_SKILL_POINTS)
 			++skillPoints;
+		markSnapshotDirty();
 		// TODO send levelUp packet to client to sync character level and skill points
-		// TODO remove chat message; integrate with level up message in HUD
-		player.addChatMessage("Current unallocated skill points: " + skillPoints);
+		// TODO integrate with level up message in HUD
+		if (totalLevel <= MAX_SKILL_POINTS)
+			notifier.skillPointsGained(1, skillPoints);
+		levelChanged(attribute, attribute.getLevel() - 1);
 	}
 	
-	/** Buffer holding small amounts of XP; when it reaches the THRESHOLD, will be sent to the server */
+	/** Buffer holding small amounts of XP units; when it reaches the THRESHOLD, will be sent to the server */
 	@SideOnly(Side.CLIENT)
-	private float[] xpBuffer;
+	private long[] xpBuffer;
 	
-	/** Amount of Xp after which the client will send update packet to server */
+	/** Amount of Xp units (0.01 Xp) after which the client will send update packet to server */
 	//@SideOnly(Side.CLIENT) // can't make this final and client side at the same time
-	private static final float THRESHOLD = 0.01F;
+	private static final long THRESHOLD = SkillAttribute.XP_UNIT / 100;
 	
 	/**
 	 * Initializes xpBuffer array and sets initial values to zero
 	 */
 	@SideOnly(Side.CLIENT)
 	private void initXpBuffer() {
-		xpBuffer = new float[SkillBase.NUM_ATTRIBUTES];
-		for (int i = 0; i < xpBuffer.length; ++i) { xpBuffer[i] = 0.0F; }
+		xpBuffer = new long[SkillBase.NUM_ATTRIBUTES];
 	}
 	
 	/**
 	 * Client side accumulates XP in a buffer, sending packet to server when it exceeds a certain threshold
 	 */
 	@SideOnly(Side.CLIENT)
-	private void addClientXp(float amount, byte id)
+	private void addClientXp(long amount, byte id)
 	{
 		xpBuffer[id] += amount;
 		if (xpBuffer[id] > THRESHOLD) {
 			PacketHandler.sendAddXpPacket(player, xpBuffer[id], id);
-			xpBuffer[id] = 0.0F;
+			xpBuffer[id] = 0L;
 		}
 	}
 	
@@ -205,8 +320,10 @@ public class SkillInfo implements IExtendedEntityProperties
 		byte id = inputStream.readByte();
 		if (id < SkillBase.NUM_ATTRIBUTES) {
 			baseSkills.put(id, SkillBase.skillsList[id].loadFromStream(id, inputStream));
-			System.out.println("Attribute read from stream: " + baseSkills.get(id).name +
-					", current level: " + baseSkills.get(id).getLevel() + ", current XP: " + ((SkillAttribute) baseSkills.get(id)).getXp());
+			if (SkillsLog.isDebug(Category.XP)) {
+				SkillsLog.debug(Category.XP, "Attribute read from stream: " + baseSkills.get(id).name +
+						", current level: " + baseSkills.get(id).getLevel() + ", current XP: " + ((SkillAttribute) baseSkills.get(id)).getXp());
+			}
 			// TODO this way won't update character level / skill points
 		} else {
 			throw new IllegalArgumentException("Updating attribute from packet contains invalid id " + id);
@@ -219,11 +336,19 @@ public class SkillInfo implements IExtendedEntityProperties
 	 */
 	public void onUpdate()
 	{
-		if (isCooling()) {
-			System.out.println("Global cooldown in effect; time remaining " + globalCooldown);
-			decrementCooldown();
-		} else {
-			for (SkillActive skill : activeSkills.values()) { skill.onUpdate(player); }
+		long start = SkillsProfiler.start(Section.SKILL_INFO_UPDATE);
+		try {
+			notifier.flush();
+			if (isCooling()) {
+				if (SkillsLog.isDebug(Category.SKILL) && COOLDOWN_LOG.sample()) {
+					SkillsLog.debug(Category.SKILL, "Global cooldown in effect; time remaining " + globalCooldown);
+				}
+				decrementCooldown();
+			} else {
+				for (SkillActive skill : activeSkills.values()) { skill.onUpdate(player); }
+			}
+		} finally {
+			SkillsProfiler.end(Section.SKILL_INFO_UPDATE, start);
 		}
 	}
 	
@@ -245,6 +370,12 @@ public class SkillInfo implements IExtendedEntityProperties
 	@Override
 	public final void saveNBTData(NBTTagCompound compound)
 	{
+		// called on logout and on death (see saveProxyData), after which the pending activity would be lost
+		if (!player.worldObj.isRemote) {
+			for (int id = 0; id < activityTicks.length; ++id) {
+				if (baseSkills.containsKey((byte) id)) { grantActivity(id); }
+			}
+		}
 		NBTTagList baseList = new NBTTagList();
 		for (SkillBase skill : baseSkills.values()) {
 			NBTTagCompound skillTag = new NBTTagCompound();
@@ -318,7 +449,7 @@ public class SkillInfo implements IExtendedEntityProperties
 		}
 		
 		skillPoints = inputStream.readByte();
-		System.out.println("Skill points from NBT: " + skillPoints);
+		if (SkillsLog.isDebug(Category.SKILL)) { SkillsLog.debug(Category.SKILL, "Skill points from stream: " + skillPoints); }
 	}
 
 	@Override
@@ -352,8 +483,39 @@ public class SkillInfo implements IExtendedEntityProperties
 
 		if (savedData != null) { playerData.loadNBTData(savedData); }
 		
+		playerData.markSnapshotDirty();
 		playerData.sync();
 	}
+	
+	/**
+	 * Queues a new snapshot of this player's skills to be published at the end of the tick, if not
+	 * already queued; should be called after any change to skills, xp or skill points on the server
+	 */
+	public void markSnapshotDirty()
+	{
+		if (!snapshotDirty && !player.worldObj.isRemote) {
+			snapshotDirty = true;
+			SkillSnapshots.markDirty(this);
+		}
+	}
+	
+	/**
+	 * Returns an immutable copy of this player's skills and clears the dirty flag, or null if the
+	 * player has since died or logged out; called by SkillSnapshots.publish
+	 */
+	final SkillSnapshot createSnapshot(long tick)
+	{
+		snapshotDirty = false;
+		if (player.isDead) { return null; }
+		byte[] levels = new byte[SkillBase.MAX_NUM_SKILLS];
+		long[] xp = new long[SkillBase.NUM_ATTRIBUTES];
+		for (SkillBase skill : baseSkills.values()) {
+			levels[skill.id] = skill.getLevel();
+			if (skill instanceof SkillAttribute) { xp[skill.id] = ((SkillAttribute) skill).getXpUnits(); }
+		}
+		for (SkillActive skill : activeSkills.values()) { levels[skill.id] = skill.getLevel(); }
+		return new SkillSnapshot(player.username, tick, levels, xp, skillPoints);
+	}
 
 	/** Sends full update packet to client */
 	public final void sync() { if (!player.worldObj.isRemote) PacketHandler.sendSyncSkillsPacket(player); }
@@ -0,0 +1,222 @@
+package coolalias.skillsmod;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import coolalias.skillsmod.skills.SkillBase;
+import coolalias.skillsmod.skills.SkillBase.AttributeCode;
+import coolalias.skillsmod.util.RankTree;
+import coolalias.skillsmod.util.SkillsLog;
+import coolalias.skillsmod.util.SkillsLog.Category;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Server-wide ranking of players by each attribute's level and by total level, for leaderboard
+ * commands and the like. Each board is a RankTree, so top-N and rank-of-player queries take
+ * O(log n) time per entry and never touch player data.
+ *
+ * Boards are updated as attribute levels change (via ISkillListener) and when a player joins,
+ * and include offline players: the levels of every known player are saved to a snapshot file
+ * in the world save directory when the world is saved and loaded when the server starts.
+ *
+ * Should only be used from the server thread.
+ *
+ */
+public class SkillLeaderboard extends SkillListenerAdapter
+{
+	/** Index of the total level board; boards below this are indexed by attribute id */
+	public static final int TOTAL = SkillBase.NUM_ATTRIBUTES;
+
+	public static final int NUM_BOARDS = TOTAL + 1;
+
+	/** Name of the snapshot file in the world save directory */
+	public static final String FILE_NAME = "skillsmod-leaderboard.dat";
+
+	private static final SkillLeaderboard instance = new SkillLeaderboard();
+
+	/** A known player's display name and current level on each board */
+	private static final class Entry
+	{
+		private final String name;
+		private final int[] levels = new int[NUM_BOARDS];
+		private Entry(String name) { this.name = name; }
+	}
+
+	private final RankTree[] boards = new RankTree[NUM_BOARDS];
+
+	/** All known players, by lower case name; the same key is used in the boards */
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+	/** True if levels have changed since the last save */
+	private boolean dirty = false;
+
+	private SkillLeaderboard() {
+		for (int i = 0; i < NUM_BOARDS; ++i) { boards[i] = new RankTree(); }
+	}
+
+	/** Returns the leaderboard */
+	public static SkillLeaderboard get() { return instance; }
+
+	/** Registers the leaderboard as a skill listener; called from SkillsMod.preInit */
+	public static void register() { SkillEvents.register(instance); }
+
+	/**
+	 * Returns the board index for a name such as "str", "strength" or "total", or -1 if there is no such board
+	 */
+	public static int getBoard(String name)
+	{
+		if (name.equalsIgnoreCase("total")) { return TOTAL; }
+		for (AttributeCode code : AttributeCode.values()) {
+			if (name.equalsIgnoreCase(code.name()) || name.equalsIgnoreCase(SkillBase.skillsList[code.ordinal()].name)) { return code.ordinal(); }
+		}
+		return -1;
+	}
+
+	/** Returns the display name of the board */
+	public static String getBoardName(int board) { return board == TOTAL ? "Total" : SkillBase.skillsList[board].name; }
+
+	@Override
+	public void onLevelChanged(SkillInfo info, SkillBase skill, int oldLevel, int newLevel)
+	{
+		if (skill.id < SkillBase.NUM_ATTRIBUTES && !info.getPlayer().worldObj.isRemote) {
+			setLevel(getEntry(info.getPlayer().username), skill.id, newLevel);
+		}
+	}
+
+	/** Brings the player's entry up to date with the player's current attribute levels; called when the player joins */
+	public void update(EntityPlayer player)
+	{
+		SkillInfo info = SkillInfo.get(player);
+		Entry entry = getEntry(player.username);
+		for (int i = 0; i < SkillBase.NUM_ATTRIBUTES; ++i) { setLevel(entry, i, info.getSkillLevel(SkillBase.skillsList[i])); }
+	}
+
+	/** Returns the number of players on each board */
+	public int size() { return entries.size(); }
+
+	/** Returns the 1-based rank of the player on the board, or 0 if the player is not known */
+	public int getRank(String name, int board)
+	{
+		Entry entry = entries.get(name.toLowerCase());
+		return entry == null ? 0 : boards[board].rank(name.toLowerCase(), entry.levels[board]) + 1;
+	}
+
+	/** Returns the player's level on the board, or 0 if the player is not known */
+	public int getLevel(String name, int board)
+	{
+		Entry entry = entries.get(name.toLowerCase());
+		return entry == null ? 0 : entry.levels[board];
+	}
+
+	/** Returns the display name of the player at the 1-based rank on the board */
+	public String getNameAt(int board, int rank) { return entries.get(boards[board].getKey(rank - 1)).name; }
+
+	/** Returns the level of the player at the 1-based rank on the board */
+	public int getLevelAt(int board, int rank) { return boards[board].getScore(rank - 1); }
+
+	private Entry getEntry(String name)
+	{
+		String key = name.toLowerCase();
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			entry = new Entry(name);
+			entries.put(key, entry);
+			for (int i = 0; i < NUM_BOARDS; ++i) { boards[i].insert(key, 0); }
+			dirty = true;
+		}
+		return entry;
+	}
+
+	/** Sets the entry's level for an attribute, moving it on that board and on the total board */
+	private void setLevel(Entry entry, int attribute, int level)
+	{
+		int oldLevel = entry.levels[attribute];
+		if (level == oldLevel) { return; }
+		String key = entry.name.toLowerCase();
+		move(key, entry, attribute, level);
+		move(key, entry, TOTAL, entry.levels[TOTAL] + level - oldLevel);
+		dirty = true;
+	}
+
+	private void move(String key, Entry entry, int board, int level)
+	{
+		boards[board].remove(key, entry.levels[board]);
+		entry.levels[board] = level;
+		boards[board].insert(key, level);
+	}
+
+	/**
+	 * Replaces all data with the snapshot in the file, if it exists; called when the server starts
+	 */
+	public void load(File file)
+	{
+		entries.clear();
+		for (int i = 0; i < NUM_BOARDS; ++i) { boards[i].clear(); }
+		dirty = false;
+		if (!file.exists()) { return; }
+		InputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+			NBTTagList players = CompressedStreamTools.readCompressed(inputStream).getTagList("players");
+			for (int i = 0; i < players.tagCount(); ++i) {
+				NBTTagCompound tag = (NBTTagCompound) players.tagAt(i);
+				byte[] levels = tag.getByteArray("levels");
+				Entry entry = getEntry(tag.getString("name"));
+				for (int j = 0; j < Math.min(levels.length, SkillBase.NUM_ATTRIBUTES); ++j) { setLevel(entry, j, levels[j]); }
+			}
+			dirty = false;
+		} catch (Exception e) {
+			SkillsLog.severe(Category.SKILL, "Unable to load leaderboard from " + file + ": " + e);
+		} finally {
+			PacketHandler.closeStream(inputStream);
+		}
+	}
+
+	/**
+	 * Writes all known players' attribute levels to the file if anything has changed since the last
+	 * save; the file is written under a temporary name first, so a failed save never corrupts it
+	 */
+	public void save(File file)
+	{
+		if (!dirty) { return; }
+		NBTTagList players = new NBTTagList();
+		for (Entry entry : entries.values()) {
+			NBTTagCompound tag = new NBTTagCompound();
+			tag.setString("name", entry.name);
+			byte[] levels = new byte[SkillBase.NUM_ATTRIBUTES];
+			for (int i = 0; i < levels.length; ++i) { levels[i] = (byte) entry.levels[i]; }
+			tag.setByteArray("levels", levels);
+			players.appendTag(tag);
+		}
+		NBTTagCompound compound = new NBTTagCompound();
+		compound.setTag("players", players);
+
+		File temp = new File(file.getPath() + ".tmp");
+		OutputStream outputStream = null;
+		try {
+			outputStream = new FileOutputStream(temp);
+			CompressedStreamTools.writeCompressed(compound, outputStream);
+			outputStream.close();
+			outputStream = null;
+			if (file.exists() && !file.delete()) { throw new IOException("could not replace " + file); }
+			if (!temp.renameTo(file)) { throw new IOException("could not rename " + temp); }
+			dirty = false;
+		} catch (IOException e) {
+			SkillsLog.severe(Category.SKILL, "Unable to save leaderboard to " + file + ": " + e);
+		} finally {
+			PacketHandler.closeStream(outputStream);
+		}
+	}
+}
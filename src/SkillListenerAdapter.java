@@ -0,0 +1,30 @@
+package coolalias.skillsmod;
+
+import coolalias.skillsmod.skills.SkillActive;
+import coolalias.skillsmod.skills.SkillAttribute;
+import coolalias.skillsmod.skills.SkillBase;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Empty implementation of ISkillListener for convenience
+ *
+ */
+public abstract class SkillListenerAdapter implements ISkillListener
+{
+	@Override
+	public void onXpChanged(SkillInfo info, SkillAttribute attribute, long oldXp, long newXp) {}
+
+	@Override
+	public void onLevelChanged(SkillInfo info, SkillBase skill, int oldLevel, int newLevel) {}
+
+	@Override
+	public void onSkillLearned(SkillInfo info, SkillBase skill) {}
+
+	@Override
+	public void onCooldownStart(SkillInfo info, SkillActive skill, int ticks) {}
+
+	@Override
+	public void onCooldownEnd(SkillInfo info, SkillActive skill) {}
+}
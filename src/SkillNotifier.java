@@ -0,0 +1,113 @@
+package coolalias.skillsmod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayer;
+import coolalias.skillsmod.skills.SkillBase;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Per-player queue of chat notifications. Rather than sending a chat packet for every level
+ * gained or skill used, messages are collected during the tick and merged into a single
+ * summary line, e.g. "Strength 3→7, +4 skill points", which is sent when flush is called
+ * from SkillInfo's update tick.
+ *
+ * TODO route the summary to the HUD instead of chat once there is one
+ *
+ */
+public class SkillNotifier
+{
+	private final EntityPlayer player;
+
+	/** Bit mask of skill ids with a pending level change; skill ids are always less than 64 */
+	private long changedSkills = 0L;
+
+	/** Level each changed skill had before the first change this tick, indexed by skill id */
+	private final byte[] oldLevels = new byte[SkillBase.MAX_NUM_SKILLS];
+
+	/** Level each changed skill had after the last change this tick, indexed by skill id */
+	private final byte[] newLevels = new byte[SkillBase.MAX_NUM_SKILLS];
+
+	/** Skill points gained this tick and the resulting number of unallocated points */
+	private int pointsGained = 0, pointsTotal = 0;
+
+	/** Other messages queued this tick; a message with the same key replaces the earlier one */
+	private final List<String> keys = new ArrayList<String>(4), messages = new ArrayList<String>(4);
+
+	private final StringBuilder builder = new StringBuilder(64);
+
+	public SkillNotifier(EntityPlayer player) { this.player = player; }
+
+	/**
+	 * Records an increase in level for the skill; multiple increases in one tick are merged
+	 */
+	public void levelChanged(SkillBase skill, int oldLevel, int newLevel)
+	{
+		long bit = 1L << skill.id;
+		if ((changedSkills & bit) == 0) {
+			changedSkills |= bit;
+			oldLevels[skill.id] = (byte) oldLevel;
+			newLevels[skill.id] = (byte) newLevel;
+		} else {
+			oldLevels[skill.id] = (byte) Math.min(oldLevels[skill.id], oldLevel);
+			newLevels[skill.id] = (byte) Math.max(newLevels[skill.id], newLevel);
+		}
+	}
+
+	/**
+	 * Records skill points gained, along with the current total of unallocated skill points
+	 */
+	public void skillPointsGained(int amount, int total) {
+		pointsGained += amount;
+		pointsTotal = total;
+	}
+
+	/**
+	 * Queues a message; if a message with the same key is already queued, it is replaced
+	 */
+	public void addMessage(String key, String message)
+	{
+		int i = keys.indexOf(key);
+		if (i < 0) {
+			keys.add(key);
+			messages.add(message);
+		} else {
+			messages.set(i, message);
+		}
+	}
+
+	/** Returns true if there is anything waiting to be sent */
+	public boolean hasPending() { return changedSkills != 0L || pointsGained > 0 || !messages.isEmpty(); }
+
+	/**
+	 * Sends all queued notifications as a single chat message and clears the queue
+	 */
+	public void flush()
+	{
+		if (!hasPending()) { return; }
+		builder.setLength(0);
+		for (int id = 0; changedSkills != 0L; ++id, changedSkills >>>= 1) {
+			if ((changedSkills & 1L) != 0 && oldLevels[id] != newLevels[id]) {
+				append(SkillBase.skillsList[id].name).append(' ').append(oldLevels[id]).append('→').append(newLevels[id]);
+			}
+		}
+		if (pointsGained > 0) {
+			append("+").append(pointsGained).append(pointsGained == 1 ? " skill point (" : " skill points (").append(pointsTotal).append(" unallocated)");
+		}
+		for (int i = 0; i < messages.size(); ++i) { append(messages.get(i)); }
+
+		pointsGained = 0;
+		keys.clear();
+		messages.clear();
+		if (builder.length() > 0) { player.addChatMessage(builder.toString()); }
+	}
+
+	/** Appends a separator if needed and returns the builder for convenience */
+	private StringBuilder append(String string) {
+		if (builder.length() > 0) { builder.append(", "); }
+		return builder.append(string);
+	}
+}
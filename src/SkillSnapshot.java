@@ -0,0 +1,69 @@
+package coolalias.skillsmod;
+
+import coolalias.skillsmod.skills.SkillAttribute;
+import coolalias.skillsmod.skills.SkillBase;
+import coolalias.skillsmod.skills.SkillBase.AttributeCode;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Immutable copy of a player's skills at the end of a server tick, safe to read from any
+ * thread. Published by SkillSnapshots; see there for how to obtain one.
+ *
+ */
+public final class SkillSnapshot
+{
+	private final String name;
+
+	/** Server tick count at which this snapshot was taken */
+	private final long tick;
+
+	/** Level of every skill the player has, indexed by skill id; 0 if the player doesn't have the skill */
+	private final byte[] levels;
+
+	/** Current xp of each attribute in fixed-point units, indexed by attribute id */
+	private final long[] xpUnits;
+
+	private final int skillPoints, characterLevel;
+
+	/** Takes ownership of the arrays, which must not be modified afterwards */
+	SkillSnapshot(String name, long tick, byte[] levels, long[] xpUnits, int skillPoints)
+	{
+		this.name = name;
+		this.tick = tick;
+		this.levels = levels;
+		this.xpUnits = xpUnits;
+		this.skillPoints = skillPoints;
+		int total = 0;
+		for (int i = 0; i < SkillBase.NUM_ATTRIBUTES; ++i) { total += levels[i]; }
+		this.characterLevel = total;
+	}
+
+	/** Returns the player's name */
+	public String getName() { return name; }
+
+	/** Returns the server tick count at which this snapshot was taken */
+	public long getTick() { return tick; }
+
+	/** Returns the player's level in the skill, or 0 if the player doesn't have it */
+	public int getSkillLevel(SkillBase skill) { return getSkillLevel(skill.id); }
+
+	/** Returns the player's level in the skill with this id, or 0 if the player doesn't have it */
+	public int getSkillLevel(int id) { return id >= 0 && id < levels.length ? levels[id] : 0; }
+
+	/** Returns true if the player has at least one level in the skill with this id */
+	public boolean hasSkill(int id) { return getSkillLevel(id) > 0; }
+
+	/** Returns the attribute's current xp, for display purposes */
+	public float getXp(AttributeCode attribute) { return SkillAttribute.fromXpUnits(xpUnits[attribute.ordinal()]); }
+
+	/** Returns the attribute's current xp in fixed-point units */
+	public long getXpUnits(AttributeCode attribute) { return xpUnits[attribute.ordinal()]; }
+
+	/** Returns the number of unallocated skill points */
+	public int getSkillPoints() { return skillPoints; }
+
+	/** Returns the sum of all attribute levels */
+	public int getCharacterLevel() { return characterLevel; }
+}
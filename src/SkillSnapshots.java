@@ -0,0 +1,68 @@
+package coolalias.skillsmod;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Registry of the latest SkillSnapshot of every online player, for threads other than the
+ * server thread (web maps, chat bridges, metrics exporters) that need player levels without
+ * locking or touching SkillInfo, whose state is only safe to read on the server thread.
+ *
+ * On the server thread, SkillInfo marks itself dirty whenever its skills change. At the end
+ * of each server tick, a new snapshot is built for each dirty player only and replaces the
+ * previous one in a ConcurrentHashMap, which publishes it safely to readers; unchanged
+ * players keep their current snapshot. Readers always see a complete snapshot, at most one
+ * tick old. Snapshots are removed when the player logs out.
+ *
+ */
+public final class SkillSnapshots
+{
+	private static final ConcurrentMap<String, SkillSnapshot> snapshots = new ConcurrentHashMap<String, SkillSnapshot>();
+
+	/** Players changed since the last publish; server thread only */
+	private static final List<SkillInfo> dirty = new ArrayList<SkillInfo>();
+
+	private static long tick = 0L;
+
+	private SkillSnapshots() {}
+
+	/** Returns the latest snapshot of the player with this name, or null if the player is not online; may be called from any thread */
+	public static SkillSnapshot get(String name) { return snapshots.get(name); }
+
+	/** Returns an unmodifiable live view of all current snapshots; may be called from any thread */
+	public static Collection<SkillSnapshot> getAll() { return Collections.unmodifiableCollection(snapshots.values()); }
+
+	/** Queues the player's skills to be published at the end of the tick; called by SkillInfo on the server thread */
+	static void markDirty(SkillInfo info) { dirty.add(info); }
+
+	/**
+	 * Publishes a new snapshot for each player changed during this tick; called at the end of each server tick
+	 */
+	public static void publish()
+	{
+		++tick;
+		for (int i = 0; i < dirty.size(); ++i) {
+			SkillInfo info = dirty.get(i);
+			SkillSnapshot snapshot = info.createSnapshot(tick);
+			if (snapshot != null) { snapshots.put(snapshot.getName(), snapshot); }
+		}
+		dirty.clear();
+	}
+
+	/** Removes the player's snapshot; called when the player logs out */
+	public static void remove(String name) { snapshots.remove(name); }
+
+	/** Removes all snapshots and pending changes; called when the server stops */
+	public static void clear()
+	{
+		snapshots.clear();
+		dirty.clear();
+	}
+}
@@ -15,7 +15,15 @@ import net.minecraftforge.event.entity.living.LivingEvent.LivingUpdateEvent;
 import net.minecraftforge.event.entity.living.LivingHurtEvent;
 import net.minecraftforge.event.entity.player.ArrowLooseEvent;
 import net.minecraftforge.event.world.BlockEvent.HarvestDropsEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import coolalias.skillsmod.entity.EntitySpatialHash;
+import coolalias.skillsmod.entity.StuckArrowIndex;
+import coolalias.skillsmod.entity.skill.FireBlastPool;
 import coolalias.skillsmod.skills.SkillBase.AttributeCode;
+import coolalias.skillsmod.util.SkillsLog;
+import coolalias.skillsmod.util.SkillsLog.Category;
+import coolalias.skillsmod.util.SkillsProfiler;
+import coolalias.skillsmod.util.SkillsProfiler.Section;
 
 /**
  * 
@@ -30,6 +38,8 @@ import coolalias.skillsmod.skills.SkillBase.AttributeCode;
  * NOTE: Killing an entity with anything other than a bow or physical damage may not register
  * the player as the entity inflicting the damage, preventing the player from receiving xp even
  * if responsible (such as setting a mob on fire with flint and steel)
+ * 
+ * Each handler is timed by SkillsProfiler under its own Section.
  *
  */
 public class SkillsHandler
@@ -57,7 +67,7 @@ public class SkillsHandler
 	
 	public static final void addDamageToAttributeMapping(String damageType, AttributeCode attribute)
 	{
-		if (xpTypeFromDamage.containsKey(attribute)) { System.out.println("WARNING: Overriding current mapping for " + damageType + " with attribute id " + attribute); }
+		if (xpTypeFromDamage.containsKey(attribute)) { SkillsLog.warning(Category.EVENT, "Overriding current mapping for " + damageType + " with attribute id " + attribute); }
 		xpTypeFromDamage.put(damageType, attribute);
 	}
 	
@@ -88,8 +98,14 @@ public class SkillsHandler
 	// TODO this may not be a problem, test further: make sure to add Xp on only one side to prevent double Xp in single player
 	
 	@ForgeSubscribe
-	public void onArrowLooseEvent(ArrowLooseEvent event) {
-		SkillInfo.get(event.entityPlayer).addXp(XP_LOW, AttributeCode.AGI);
+	public void onArrowLooseEvent(ArrowLooseEvent event)
+	{
+		long start = SkillsProfiler.start(Section.ARROW_LOOSE);
+		try {
+			SkillInfo.get(event.entityPlayer).addXp(XP_LOW, AttributeCode.AGI, XpSource.ARROW);
+		} finally {
+			SkillsProfiler.end(Section.ARROW_LOOSE, start);
+		}
 	}
 	
 	/**
@@ -98,108 +114,122 @@ public class SkillsHandler
 	@ForgeSubscribe
 	public void onAttacked(LivingAttackEvent event)
 	{
-		if (event.entity instanceof EntityPlayer) {
-			EntityPlayer player = (EntityPlayer) event.entity;
-			if (player.isBlocking()) { SkillInfo.get(player).addXp(XP_LOW * event.ammount * XP_DMG_TAKE, AttributeCode.STR); }
+		long start = SkillsProfiler.start(Section.ATTACKED);
+		try {
+			if (event.entity instanceof EntityPlayer) {
+				EntityPlayer player = (EntityPlayer) event.entity;
+				if (player.isBlocking()) { SkillInfo.get(player).addXp(XP_LOW * event.ammount * XP_DMG_TAKE, AttributeCode.STR, XpSource.BLOCK); }
+			}
+		} finally {
+			SkillsProfiler.end(Section.ATTACKED, start);
 		}
 	}
 	
 	@ForgeSubscribe
 	public void onHurt(LivingHurtEvent event)
 	{
-		// probably don't need this first check...
-		if (event.ammount > 0F)
-		{
-			int xpType = getXpType(event.source);
-			
-			if (xpType != NO_TYPE)
+		long start = SkillsProfiler.start(Section.HURT);
+		try {
+			// probably don't need this first check...
+			if (event.ammount > 0F)
 			{
-				// Damaged entity is a player
-				if (event.entity instanceof EntityPlayer) {
-					System.out.println("Player suffered " + event.ammount + " damage.");
-					SkillInfo.get((EntityPlayer) event.entity).addXp(XP_LOW * event.ammount * XP_DMG_TAKE, (byte) xpType);
-				}
-				// Entity damaged by a player
-				if (event.source.getEntity() instanceof EntityPlayer) {
-					System.out.println("getEntity Player damaged entity for " + event.ammount + " damage.");
-					SkillInfo.get((EntityPlayer) event.source.getEntity()).addXp(XP_LOW * event.ammount * XP_DMG_DEAL, (byte) xpType);
-				}
-				// TODO remove the following; only for debug as SourceOfDamage isn't needed
-				if (event.source.getSourceOfDamage() instanceof EntityPlayer) {
-					System.out.println("getSourceOfDamge Player damaged entity for " + event.ammount + " damage.");
-					SkillInfo.get((EntityPlayer) event.source.getSourceOfDamage()).addXp(XP_LOW * event.ammount * XP_DMG_DEAL, (byte) xpType);
+				int xpType = getXpType(event.source);
+			
+				if (xpType != NO_TYPE)
+				{
+					// Damaged entity is a player
+					if (event.entity instanceof EntityPlayer) {
+						if (SkillsLog.isDebug(Category.EVENT)) { SkillsLog.debug(Category.EVENT, "Player suffered " + event.ammount + " damage."); }
+						SkillInfo.get((EntityPlayer) event.entity).addXp(XP_LOW * event.ammount * XP_DMG_TAKE, (byte) xpType, XpSource.HURT);
+					}
+					// Entity damaged by a player
+					if (event.source.getEntity() instanceof EntityPlayer) {
+						if (SkillsLog.isDebug(Category.EVENT)) { SkillsLog.debug(Category.EVENT, "getEntity Player damaged entity for " + event.ammount + " damage."); }
+						SkillInfo.get((EntityPlayer) event.source.getEntity()).addXp(XP_LOW * event.ammount * XP_DMG_DEAL, (byte) xpType, XpSource.DEAL_DAMAGE);
+					}
+					// TODO remove the following; only for debug as SourceOfDamage isn't needed
+					if (event.source.getSourceOfDamage() instanceof EntityPlayer) {
+						if (SkillsLog.isDebug(Category.EVENT)) { SkillsLog.debug(Category.EVENT, "getSourceOfDamge Player damaged entity for " + event.ammount + " damage."); }
+						SkillInfo.get((EntityPlayer) event.source.getSourceOfDamage()).addXp(XP_LOW * event.ammount * XP_DMG_DEAL, (byte) xpType, XpSource.DEAL_DAMAGE);
+					}
 				}
 			}
+		} finally {
+			SkillsProfiler.end(Section.HURT, start);
 		}
 	}
 	
 	@ForgeSubscribe
 	public void onDeath(LivingDeathEvent event)
 	{
-		// Player killed the entity
-		if (event.source.getEntity() instanceof EntityPlayer) {
-			EntityPlayer player = (EntityPlayer) event.source.getEntity();
-			// TODO physical blows return damage type of "player", bows "arrow", and fire doesn't register player as the source of damage
-			System.out.println(player.username + " killed a " + event.entityLiving.getEntityName() + " with damage type " + event.source.damageType);
-			if (getXpType(event.source) != NO_TYPE)
-				SkillInfo.get(player).addXp(XP_HIGH, (byte) getXpType(event.source));
-		}
-		
-		if (!event.entity.worldObj.isRemote && event.entity instanceof EntityPlayer) {
-			SkillInfo.saveProxyData((EntityPlayer) event.entity);
+		long start = SkillsProfiler.start(Section.DEATH);
+		try {
+			// Player killed the entity
+			if (event.source.getEntity() instanceof EntityPlayer) {
+				EntityPlayer player = (EntityPlayer) event.source.getEntity();
+				// TODO physical blows return damage type of "player", bows "arrow", and fire doesn't register player as the source of damage
+				if (SkillsLog.isDebug(Category.EVENT)) {
+					SkillsLog.debug(Category.EVENT, player.username + " killed a " + event.entityLiving.getEntityName() + " with damage type " + event.source.damageType);
+				}
+				int xpType = getXpType(event.source);
+				if (xpType != NO_TYPE)
+					SkillInfo.get(player).addXp(XP_HIGH, (byte) xpType, XpSource.KILL);
+			}
+			
+			if (!event.entity.worldObj.isRemote && event.entity instanceof EntityPlayer) {
+				SkillInfo.saveProxyData((EntityPlayer) event.entity);
+			}
+		} finally {
+			SkillsProfiler.end(Section.DEATH, start);
 		}
 	}
 	
 	@ForgeSubscribe
 	public void onJump(LivingJumpEvent event)
 	{
-		if (event.entity instanceof EntityPlayer) {
-			SkillInfo.get((EntityPlayer) event.entity).addXp(XP_LOW, AttributeCode.AGI);
+		long start = SkillsProfiler.start(Section.JUMP);
+		try {
+			if (event.entity instanceof EntityPlayer) {
+				SkillInfo.get((EntityPlayer) event.entity).addXp(XP_LOW, AttributeCode.AGI, XpSource.JUMP);
+			}
+		} finally {
+			SkillsProfiler.end(Section.JUMP, start);
 		}
 	}
 	
 	@ForgeSubscribe
 	public void onBreakBlock(HarvestDropsEvent event)
 	{
-		if (event.harvester != null) {
-			float hardness = event.block.blockHardness;
-			if (hardness > 0) { SkillInfo.get(event.harvester).addXp(XP_LOW * hardness * XP_MINING, AttributeCode.STR); }
+		long start = SkillsProfiler.start(Section.BREAK_BLOCK);
+		try {
+			if (event.harvester != null) {
+				float hardness = event.block.blockHardness;
+				if (hardness > 0) { SkillInfo.get(event.harvester).addXp(XP_LOW * hardness * XP_MINING, AttributeCode.STR, XpSource.MINING); }
+			}
+		} finally {
+			SkillsProfiler.end(Section.BREAK_BLOCK, start);
 		}
 	}
 	
 	@ForgeSubscribe
 	public void onLivingUpdate(LivingUpdateEvent event)
 	{
-		if (event.entity instanceof EntityPlayer)
-		{
-			EntityPlayer player = (EntityPlayer) event.entity;
-			SkillInfo.get(player).onUpdate();
-			
-			if (player.isSprinting() || (player.isSneaking() && isPlayerMoving(player))) {
-				// AttributeModifier sprintingSpeedBoostModifier = (new AttributeModifier(sprintingSpeedBoostModifierUUID, "Sprinting speed boost", 0.30000001192092896D, 2)).setSaved(false);
-				/*
-				AttributeInstance attributeinstance = player.getEntityAttribute(SharedMonsterAttributes.movementSpeed);
-				if (attributeinstance.getModifier(sprintingSpeedBoostModifierUUID) != null)
-		        {
-		            attributeinstance.removeModifier(sprintingSpeedBoostModifier);
-		        }
-
-		        if (par1)
-		        {
-		            attributeinstance.applyModifier(sprintingSpeedBoostModifier);
-		        }
-		        */
-				//player.addChatMessage("Side == client? " + player.worldObj.isRemote);
-				SkillInfo.get(player).addXp(XP_LOW * XP_TICK, AttributeCode.AGI);
-			}
-			
-			if (player.isInWater() && isPlayerMoving(player)) {
-				SkillInfo.get(player).addXp(XP_LOW * XP_TICK, AttributeCode.STR);
-			}
+		long start = SkillsProfiler.start(Section.LIVING_UPDATE);
+		try {
+			if (event.entity instanceof EntityPlayer)
+			{
+				EntityPlayer player = (EntityPlayer) event.entity;
+				SkillInfo info = SkillInfo.get(player);
+				info.onUpdate();
 			
-			if (player.isRiding() && isPlayerMoving(player)) {
-				SkillInfo.get(player).addXp(XP_LOW * XP_TICK, AttributeCode.CHA);
+				// sustained activities are only counted here; SkillInfo converts them to XP in batches
+				boolean moving = isPlayerMoving(player);
+				info.updateActivity(AttributeCode.AGI, XpSource.SPRINT, player.isSprinting() || (player.isSneaking() && moving));
+				info.updateActivity(AttributeCode.STR, XpSource.SWIM, player.isInWater() && moving);
+				info.updateActivity(AttributeCode.CHA, XpSource.RIDE, player.isRiding() && moving);
 			}
+		} finally {
+			SkillsProfiler.end(Section.LIVING_UPDATE, start);
 		}
 	}
 	
@@ -214,18 +244,72 @@ public class SkillsHandler
 	@ForgeSubscribe
 	public void onEntityConstructing(EntityConstructing event)
 	{
-		if (event.entity instanceof EntityPlayer)
-		{
-			if (SkillInfo.get((EntityPlayer) event.entity) == null)
-				SkillInfo.register((EntityPlayer) event.entity);
+		long start = SkillsProfiler.start(Section.ENTITY_CONSTRUCTING);
+		try {
+			if (event.entity instanceof EntityPlayer)
+			{
+				if (SkillInfo.get((EntityPlayer) event.entity) == null)
+					SkillInfo.register((EntityPlayer) event.entity);
+			}
+		} finally {
+			SkillsProfiler.end(Section.ENTITY_CONSTRUCTING, start);
+		}
+	}
+
+	@ForgeSubscribe
+	public void onWorldLoad(WorldEvent.Load event)
+	{
+		long start = SkillsProfiler.start(Section.WORLD_LOAD);
+		try {
+			event.world.addWorldAccess(new SkillsWorldAccess(event.world));
+		} finally {
+			SkillsProfiler.end(Section.WORLD_LOAD, start);
+		}
+	}
+
+	/**
+	 * Saves the leaderboard snapshot along with the overworld
+	 */
+	@ForgeSubscribe
+	public void onWorldSave(WorldEvent.Save event)
+	{
+		long start = SkillsProfiler.start(Section.WORLD_SAVE);
+		try {
+			if (!event.world.isRemote && event.world.provider.dimensionId == 0) {
+				SkillLeaderboard.get().save(SkillsMod.getLeaderboardFile());
+			}
+		} finally {
+			SkillsProfiler.end(Section.WORLD_SAVE, start);
+		}
+	}
+
+	/**
+	 * Drops the per-world data held for the world, which would otherwise keep it loaded
+	 */
+	@ForgeSubscribe
+	public void onWorldUnload(WorldEvent.Unload event)
+	{
+		long start = SkillsProfiler.start(Section.WORLD_UNLOAD);
+		try {
+			EntitySpatialHash.unload(event.world);
+			StuckArrowIndex.unload(event.world);
+			FireBlastPool.unload(event.world);
+		} finally {
+			SkillsProfiler.end(Section.WORLD_UNLOAD, start);
 		}
 	}
 
 	@ForgeSubscribe
 	public void onEntityJoinWorld(EntityJoinWorldEvent event)
 	{
-		if (!event.entity.worldObj.isRemote && event.entity instanceof EntityPlayer) {
-			SkillInfo.loadProxyData((EntityPlayer) event.entity);
+		long start = SkillsProfiler.start(Section.ENTITY_JOIN_WORLD);
+		try {
+			if (!event.entity.worldObj.isRemote && event.entity instanceof EntityPlayer) {
+				SkillInfo.loadProxyData((EntityPlayer) event.entity);
+				SkillLeaderboard.get().update((EntityPlayer) event.entity);
+			}
+		} finally {
+			SkillsProfiler.end(Section.ENTITY_JOIN_WORLD, start);
 		}
 	}
 }
\ No newline at end of file
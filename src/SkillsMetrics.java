@@ -0,0 +1,228 @@
+package coolalias.skillsmod;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.server.MinecraftServer;
+import coolalias.skillsmod.skills.SkillActive;
+import coolalias.skillsmod.skills.SkillAttribute;
+import coolalias.skillsmod.skills.SkillBase;
+import coolalias.skillsmod.skills.SkillBase.AttributeCode;
+import coolalias.skillsmod.util.ShallowSize;
+import coolalias.skillsmod.util.SkillsLog;
+import coolalias.skillsmod.util.SkillsLog.Category;
+import coolalias.skillsmod.util.StripedCounters;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Runtime metrics published over JMX (see SkillsMetricsMXBean), so that any JMX client or
+ * exporter can read them without a mod-specific plugin.
+ *
+ * Counters are striped and lock-free, so they are always on. Values that need the server's
+ * player list (online players, memory estimate) and XP rates are sampled on the server thread
+ * every SAMPLE_INTERVAL ticks rather than on the JMX thread.
+ *
+ */
+public class SkillsMetrics extends SkillListenerAdapter implements IPacketListener, SkillsMetricsMXBean
+{
+	public static final String OBJECT_NAME = "coolalias.skillsmod:type=SkillsMetrics";
+
+	/** Number of server ticks between samples */
+	public static final int SAMPLE_INTERVAL = 100;
+
+	/** Names of each packet type, indexed by packet id; unknown types are counted at index 0 */
+	private static final String[] PACKET_NAMES = { "unknown", "sync_player_info", "open_server_gui", "add_xp", "update_attribute" };
+
+	/**
+	 * Estimated memory use of one player's skill data on the server, not counting the skills: SkillInfo,
+	 * its notifier, skill maps and arrays, and XpTelemetry; derived from their fields and array lengths
+	 */
+	private static final int BASE_BYTES = ShallowSize.of(SkillInfo.class) + ShallowSize.ofArray(int.class, SkillBase.NUM_ATTRIBUTES)
+			+ ShallowSize.of(SkillNotifier.class) + 2 * ShallowSize.ofArray(byte.class, SkillBase.MAX_NUM_SKILLS)
+			// baseSkills is created with room for NUM_PASSIVE_SKILLS, i.e. a table of 32; activeSkills has the default 16
+			+ 2 * ShallowSize.of(HashMap.class) + ShallowSize.ofArray(Object.class, 32) + ShallowSize.ofArray(Object.class, 16)
+			+ ShallowSize.of(XpTelemetry.class) + ShallowSize.ofArray(long.class, XpSource.values().length) + ShallowSize.ofArray(int.class, XpSource.values().length)
+			+ ShallowSize.ofArray(long.class, XpSource.values().length * XpTelemetry.WINDOW) + ShallowSize.ofArray(int.class, XpSource.values().length * XpTelemetry.WINDOW);
+
+	/**
+	 * Estimated memory use of each skill instance held by a player: its map entry, the largest registered
+	 * skill class, and its own (empty) tooltip list and prerequisite set
+	 */
+	private static final int BYTES_PER_SKILL = ShallowSize.HASH_ENTRY + getLargestSkillSize()
+			+ ShallowSize.of(ArrayList.class) + ShallowSize.of(HashSet.class) + ShallowSize.of(HashMap.class);
+
+	private static final SkillsMetrics instance = new SkillsMetrics();
+
+	/** Xp units granted per attribute */
+	private final StripedCounters xp = new StripedCounters(SkillBase.NUM_ATTRIBUTES);
+
+	private static final int LEVEL_UPS = 0, ACTIVATIONS = 1;
+	private final StripedCounters events = new StripedCounters(2);
+
+	/** Payloads and bytes sent and received, PACKET_NAMES.length counters each */
+	private static final int PACKETS_SENT = 0, PACKETS_RECEIVED = 1, BYTES_SENT = 2, BYTES_RECEIVED = 3;
+	private final StripedCounters packets = new StripedCounters(4 * PACKET_NAMES.length);
+
+	/** Values set by sample on the server thread */
+	private volatile int onlinePlayers = 0;
+	private volatile long bytesPerPlayer = BASE_BYTES + BYTES_PER_SKILL * SkillBase.NUM_ATTRIBUTES;
+	private volatile double[] xpPerSecond = new double[SkillBase.NUM_ATTRIBUTES];
+
+	/** Xp totals and time at the previous sample, for computing rates; server thread only */
+	private final long[] lastXp = new long[SkillBase.NUM_ATTRIBUTES];
+	private long lastSampleTime = System.nanoTime();
+	private int ticksSinceSample = 0;
+
+	private SkillsMetrics() {}
+
+	/** Returns the size of the largest registered skill class */
+	private static int getLargestSkillSize()
+	{
+		int size = 0;
+		for (SkillBase skill : SkillBase.skillsList) {
+			if (skill != null) { size = Math.max(size, ShallowSize.of(skill.getClass())); }
+		}
+		return size;
+	}
+
+	/**
+	 * Registers the metrics as a skill and packet listener and with the platform MBean server;
+	 * called from SkillsMod.preInit, as skill listeners must be registered before postInit
+	 */
+	public static void register()
+	{
+		SkillEvents.register(instance);
+		PacketHandler.addListener(instance);
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+		} catch (JMException e) {
+			SkillsLog.warning(Category.EVENT, "Unable to register " + OBJECT_NAME + ": " + e);
+		}
+	}
+
+	/** Records fixed-point xp units granted to an attribute on the server */
+	public static void recordXp(byte id, long units) { instance.xp.add(id, units); }
+
+	/** Called at the end of every server tick; samples player data every SAMPLE_INTERVAL ticks */
+	public static void onServerTick() {
+		if (++instance.ticksSinceSample >= SAMPLE_INTERVAL) { instance.sample(); }
+	}
+
+	private void sample()
+	{
+		ticksSinceSample = 0;
+		MinecraftServer server = MinecraftServer.getServer();
+		if (server != null && server.getConfigurationManager() != null) {
+			List players = server.getConfigurationManager().playerEntityList;
+			int count = 0;
+			long bytes = 0L;
+			for (int i = 0; i < players.size(); ++i) {
+				SkillInfo info = SkillInfo.get((EntityPlayer) players.get(i));
+				if (info != null) {
+					++count;
+					bytes += BASE_BYTES + BYTES_PER_SKILL * info.getNumSkills();
+				}
+			}
+			onlinePlayers = count;
+			if (count > 0) { bytesPerPlayer = bytes / count; }
+		}
+
+		long now = System.nanoTime();
+		double seconds = (now - lastSampleTime) / 1.0E9D;
+		double[] rates = new double[SkillBase.NUM_ATTRIBUTES];
+		for (int i = 0; i < rates.length; ++i) {
+			long total = xp.sum(i);
+			rates[i] = seconds > 0.0D ? SkillAttribute.fromXpUnits(total - lastXp[i]) / seconds : 0.0D;
+			lastXp[i] = total;
+		}
+		lastSampleTime = now;
+		xpPerSecond = rates;
+	}
+
+	@Override
+	public void onLevelChanged(SkillInfo info, SkillBase skill, int oldLevel, int newLevel) {
+		if (!info.getPlayer().worldObj.isRemote) { events.add(LEVEL_UPS, newLevel - oldLevel); }
+	}
+
+	@Override
+	public void onCooldownStart(SkillInfo info, SkillActive skill, int ticks) {
+		if (!info.getPlayer().worldObj.isRemote) { events.increment(ACTIVATIONS); }
+	}
+
+	@Override
+	public void onPacketSent(EntityPlayer player, boolean toServer, byte[] data) { countPacket(PACKETS_SENT, BYTES_SENT, data); }
+
+	@Override
+	public void onPacketReceived(EntityPlayer player, boolean onServer, byte[] data) { countPacket(PACKETS_RECEIVED, BYTES_RECEIVED, data); }
+
+	private void countPacket(int packetCounter, int byteCounter, byte[] data)
+	{
+		int type = data.length > 0 && data[0] > 0 && data[0] < PACKET_NAMES.length ? data[0] : 0;
+		packets.increment(packetCounter * PACKET_NAMES.length + type);
+		packets.add(byteCounter * PACKET_NAMES.length + type, data.length);
+	}
+
+	@Override
+	public int getOnlinePlayers() { return onlinePlayers; }
+
+	@Override
+	public int getStoredEntityDataCount() { return CommonProxy.getStoredEntityDataCount(); }
+
+	@Override
+	public long getEstimatedBytesPerPlayer() { return bytesPerPlayer; }
+
+	@Override
+	public Map<String, Double> getXpGranted()
+	{
+		Map<String, Double> map = new LinkedHashMap<String, Double>();
+		for (AttributeCode code : AttributeCode.values()) {
+			map.put(code.name(), (double) SkillAttribute.fromXpUnits(xp.sum(code.ordinal())));
+		}
+		return map;
+	}
+
+	@Override
+	public Map<String, Double> getXpPerSecond()
+	{
+		double[] rates = xpPerSecond;
+		Map<String, Double> map = new LinkedHashMap<String, Double>();
+		for (AttributeCode code : AttributeCode.values()) { map.put(code.name(), rates[code.ordinal()]); }
+		return map;
+	}
+
+	@Override
+	public long getLevelUps() { return events.sum(LEVEL_UPS); }
+
+	@Override
+	public long getSkillActivations() { return events.sum(ACTIVATIONS); }
+
+	@Override
+	public Map<String, Long> getPacketsSent() { return getPacketCounts(PACKETS_SENT); }
+
+	@Override
+	public Map<String, Long> getPacketsReceived() { return getPacketCounts(PACKETS_RECEIVED); }
+
+	@Override
+	public Map<String, Long> getBytesSent() { return getPacketCounts(BYTES_SENT); }
+
+	@Override
+	public Map<String, Long> getBytesReceived() { return getPacketCounts(BYTES_RECEIVED); }
+
+	private Map<String, Long> getPacketCounts(int counter)
+	{
+		Map<String, Long> map = new LinkedHashMap<String, Long>();
+		for (int type = 0; type < PACKET_NAMES.length; ++type) { map.put(PACKET_NAMES[type], packets.sum(counter * PACKET_NAMES.length + type)); }
+		return map;
+	}
+}
@@ -0,0 +1,52 @@
+package coolalias.skillsmod;
+
+import java.util.Map;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Management interface for SkillsMetrics, registered with the platform MBean server as
+ * "coolalias.skillsmod:type=SkillsMetrics". Maps are keyed by attribute or packet type name.
+ *
+ */
+public interface SkillsMetricsMXBean
+{
+	/** Number of online players with SkillInfo, as of the last sample */
+	public int getOnlinePlayers();
+
+	/** Number of players whose SkillInfo is held by CommonProxy between death and respawn */
+	public int getStoredEntityDataCount();
+
+	/**
+	 * Estimate of the memory used by one player's skill data, in bytes, as of the last sample: the
+	 * shallow sizes of SkillInfo and the objects and arrays it owns, derived from their declared
+	 * fields and array lengths for a 64-bit JVM with compressed references (see ShallowSize), plus
+	 * a fixed size per skill held. Not a measurement; shared objects such as names are not counted.
+	 */
+	public long getEstimatedBytesPerPlayer();
+
+	/** Total XP granted on the server since start-up, per attribute */
+	public Map<String, Double> getXpGranted();
+
+	/** XP granted per second over the last sample interval, per attribute */
+	public Map<String, Double> getXpPerSecond();
+
+	/** Total number of skill and attribute levels gained since start-up */
+	public long getLevelUps();
+
+	/** Total number of active skills used since start-up */
+	public long getSkillActivations();
+
+	/** Number of payloads sent, per packet type */
+	public Map<String, Long> getPacketsSent();
+
+	/** Number of payloads received, per packet type */
+	public Map<String, Long> getPacketsReceived();
+
+	/** Number of payload bytes sent, per packet type */
+	public Map<String, Long> getBytesSent();
+
+	/** Number of payload bytes received, per packet type */
+	public Map<String, Long> getBytesReceived();
+}
@@ -1,7 +1,10 @@
 package coolalias.skillsmod;
 
+import java.io.File;
+
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.common.MinecraftForge;
 import coolalias.skillsmod.entity.skill.EntityFireBlast;
 import coolalias.skillsmod.items.ItemSkillBook;
@@ -14,11 +17,15 @@ import cpw.mods.fml.common.SidedProxy;
 import cpw.mods.fml.common.event.FMLInitializationEvent;
 import cpw.mods.fml.common.event.FMLPostInitializationEvent;
 import cpw.mods.fml.common.event.FMLPreInitializationEvent;
+import cpw.mods.fml.common.event.FMLServerStartingEvent;
+import cpw.mods.fml.common.event.FMLServerStoppingEvent;
 import cpw.mods.fml.common.network.NetworkMod;
 import cpw.mods.fml.common.network.NetworkRegistry;
 import cpw.mods.fml.common.registry.EntityRegistry;
 import cpw.mods.fml.common.registry.GameRegistry;
 import cpw.mods.fml.common.registry.LanguageRegistry;
+import cpw.mods.fml.common.registry.TickRegistry;
+import cpw.mods.fml.relauncher.Side;
 
 @Mod(modid = "skillsmod", name = "Skills Mod", version = "0.1.0")
 @NetworkMod(clientSideRequired=true, serverSideRequired=false, channels = {"skillsmod"}, packetHandler = PacketHandler.class)
@@ -48,7 +55,11 @@ public final class SkillsMod
 	@EventHandler
 	public void preInit(FMLPreInitializationEvent event)
 	{
-		EntityRegistry.registerModEntity(EntityFireBlast.class, "Fire Blast", ++modEntityIndex, this, 64, 10, true);
+		PacketTraceRecorder.startFromProperty();
+		SkillsMetrics.register();
+		SkillLeaderboard.register();
+		// flight is simulated on the client from the spawn data; the server only sends corrections
+		EntityRegistry.registerModEntity(EntityFireBlast.class, "Fire Blast", ++modEntityIndex, this, 64, Integer.MAX_VALUE, false);
 	}
 
 	@EventHandler
@@ -58,13 +69,33 @@ public final class SkillsMod
 		addNames();
 		addRecipes();
 		MinecraftForge.EVENT_BUS.register(new SkillsHandler());
+		TickRegistry.registerTickHandler(new SkillsTickHandler(), Side.SERVER);
+		GameRegistry.registerPlayerTracker(new SkillsPlayerTracker());
 		NetworkRegistry.instance().registerGuiHandler(this, new CommonProxy());
 	}
 
 	@EventHandler
 	public void postInit(FMLPostInitializationEvent event)
 	{
+		SkillEvents.freeze();
+	}
+
+	@EventHandler
+	public void serverStarting(FMLServerStartingEvent event)
+	{
+		event.registerServerCommand(new CommandSkills());
+		SkillLeaderboard.get().load(getLeaderboardFile());
 	}
+
+	@EventHandler
+	public void serverStopping(FMLServerStoppingEvent event)
+	{
+		SkillLeaderboard.get().save(getLeaderboardFile());
+		SkillSnapshots.clear();
+	}
+
+	/** Returns the leaderboard snapshot file for the current world */
+	public static File getLeaderboardFile() { return new File(DimensionManager.getCurrentSaveRootDirectory(), SkillLeaderboard.FILE_NAME); }
 	
 	private void addNames() {
 		for (int i = 0; i < SkillBase.skillsList.length; ++i) {
@@ -0,0 +1,27 @@
+package coolalias.skillsmod;
+
+import net.minecraft.entity.player.EntityPlayer;
+import cpw.mods.fml.common.IPlayerTracker;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Removes a player's published SkillSnapshot on logout; snapshots are created as soon as the
+ * player's data is loaded on joining the world (see SkillInfo.loadProxyData)
+ *
+ */
+public class SkillsPlayerTracker implements IPlayerTracker
+{
+	@Override
+	public void onPlayerLogin(EntityPlayer player) {}
+
+	@Override
+	public void onPlayerLogout(EntityPlayer player) { SkillSnapshots.remove(player.username); }
+
+	@Override
+	public void onPlayerChangedDimension(EntityPlayer player) {}
+
+	@Override
+	public void onPlayerRespawn(EntityPlayer player) {}
+}
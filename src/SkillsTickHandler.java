@@ -0,0 +1,37 @@
+package coolalias.skillsmod;
+
+import java.util.EnumSet;
+
+import coolalias.skillsmod.util.SkillsProfiler;
+import cpw.mods.fml.common.ITickHandler;
+import cpw.mods.fml.common.TickType;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Server tick handler for work done once per tick rather than per entity
+ *
+ */
+public class SkillsTickHandler implements ITickHandler
+{
+	@Override
+	public void tickStart(EnumSet<TickType> type, Object... tickData) {}
+
+	@Override
+	public void tickEnd(EnumSet<TickType> type, Object... tickData)
+	{
+		if (type.contains(TickType.SERVER)) {
+			// publish after every world has ticked so readers see the whole tick's changes
+			SkillSnapshots.publish();
+			SkillsProfiler.onServerTick();
+			SkillsMetrics.onServerTick();
+		}
+	}
+
+	@Override
+	public EnumSet<TickType> ticks() { return EnumSet.of(TickType.SERVER); }
+
+	@Override
+	public String getLabel() { return "SkillsMod"; }
+}
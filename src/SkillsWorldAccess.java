@@ -0,0 +1,69 @@
+package coolalias.skillsmod;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.IWorldAccess;
+import net.minecraft.world.World;
+import coolalias.skillsmod.entity.EntityCustomArrow;
+import coolalias.skillsmod.entity.EntitySpatialHash;
+import coolalias.skillsmod.entity.StuckArrowIndex;
+import coolalias.skillsmod.entity.skill.EntityFireBlast;
+import coolalias.skillsmod.entity.skill.FireBlastPool;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Added to every world on load to receive block change and entity removal notifications;
+ * everything else is ignored.
+ *
+ */
+public class SkillsWorldAccess implements IWorldAccess
+{
+	private final World world;
+	
+	public SkillsWorldAccess(World world) { this.world = world; }
+	
+	@Override
+	public void markBlockForUpdate(int x, int y, int z) {
+		StuckArrowIndex index = StuckArrowIndex.getIfPresent(world);
+		if (index != null) { index.onBlockChanged(x, y, z); }
+	}
+	
+	@Override
+	public void onEntityDestroy(Entity entity) {
+		// also called when entities are unloaded with their chunk, in which case they are not dead
+		if (entity instanceof EntityCustomArrow) { ((EntityCustomArrow) entity).wakeUp(); }
+		else if (entity instanceof EntityFireBlast) { FireBlastPool.get(world).release((EntityFireBlast) entity); }
+	}
+	
+	@Override
+	public void markBlockForRenderUpdate(int x, int y, int z) {}
+
+	@Override
+	public void markBlockRangeForRenderUpdate(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {}
+
+	@Override
+	public void playSound(String sound, double x, double y, double z, float volume, float pitch) {}
+
+	@Override
+	public void playSoundToNearExcept(EntityPlayer player, String sound, double x, double y, double z, float volume, float pitch) {}
+
+	@Override
+	public void spawnParticle(String particle, double x, double y, double z, double motionX, double motionY, double motionZ) {}
+
+	@Override
+	public void onEntityCreate(Entity entity) { EntitySpatialHash.onEntityAdded(entity); }
+
+	@Override
+	public void playRecord(String record, int x, int y, int z) {}
+
+	@Override
+	public void broadcastSound(int soundId, int x, int y, int z, int data) {}
+
+	@Override
+	public void playAuxSFX(EntityPlayer player, int sfxType, int x, int y, int z, int data) {}
+
+	@Override
+	public void destroyBlockPartially(int entityId, int x, int y, int z, int progress) {}
+}
@@ -0,0 +1,14 @@
+package coolalias.skillsmod;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Activities that grant attribute XP, recorded per player by XpTelemetry. CLIENT is XP
+ * accumulated on the client (movement the server doesn't see) and sent with an ADD_XP packet.
+ *
+ */
+public enum XpSource
+{
+	JUMP, SPRINT, SWIM, RIDE, BLOCK, HURT, DEAL_DAMAGE, KILL, BOOK, ARROW, MINING, CLIENT, OTHER;
+}
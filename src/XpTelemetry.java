@@ -0,0 +1,139 @@
+package coolalias.skillsmod;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Per-player record of where XP comes from, kept on the server by SkillInfo.
+ *
+ * For each XpSource, keeps the total XP units and number of grants plus a ring of
+ * WINDOW one-second buckets, so recent and peak per-second rates can be read without keeping
+ * a history. All storage is allocated up front in flat primitive arrays; recording a grant
+ * never allocates. Seconds are counted in world time (20 ticks), so rates follow server speed.
+ *
+ * Lives on the player entity's SkillInfo, so totals cover the time since the player's current
+ * entity was created: they start over on login, respawn and dimension change.
+ *
+ * Should only be used from the server thread.
+ *
+ */
+public class XpTelemetry
+{
+	/** Number of one-second buckets kept per source */
+	public static final int WINDOW = 60;
+
+	private static final int SOURCES = XpSource.values().length;
+
+	private final long[] totalUnits = new long[SOURCES];
+	private final int[] totalGrants = new int[SOURCES];
+
+	/** Buckets of each source, WINDOW entries per source; second 's' is at index s % WINDOW */
+	private final long[] recentUnits = new long[SOURCES * WINDOW];
+	private final int[] recentGrants = new int[SOURCES * WINDOW];
+
+	/** Second the newest bucket belongs to */
+	private long currentSecond = 0L;
+
+	/**
+	 * Records a grant of XP units from the source at the given world time; non-positive amounts are ignored
+	 */
+	public void record(XpSource source, long units, long worldTime)
+	{
+		if (units <= 0L) { return; }
+		advance(worldTime / 20L);
+		int s = source.ordinal(), slot = s * WINDOW + (int) (currentSecond % WINDOW);
+		totalUnits[s] += units;
+		++totalGrants[s];
+		recentUnits[slot] += units;
+		++recentGrants[slot];
+	}
+
+	/** Returns the total XP units granted by the source */
+	public long getTotalUnits(XpSource source) { return totalUnits[source.ordinal()]; }
+
+	/** Returns the number of grants from the source */
+	public int getTotalGrants(XpSource source) { return totalGrants[source.ordinal()]; }
+
+	/**
+	 * Returns the XP units granted by the source during the last 'seconds' seconds (at most WINDOW), up to worldTime
+	 */
+	public long getRecentUnits(XpSource source, int seconds, long worldTime)
+	{
+		long sum = 0L, now = worldTime / 20L;
+		int base = source.ordinal() * WINDOW;
+		for (long t = now - Math.min(seconds, WINDOW) + 1; t <= now; ++t) {
+			if (isBuffered(t)) { sum += recentUnits[base + (int) (t % WINDOW)]; }
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the number of grants from the source during the last 'seconds' seconds (at most WINDOW), up to worldTime
+	 */
+	public int getRecentGrants(XpSource source, int seconds, long worldTime)
+	{
+		int sum = 0;
+		long now = worldTime / 20L;
+		int base = source.ordinal() * WINDOW;
+		for (long t = now - Math.min(seconds, WINDOW) + 1; t <= now; ++t) {
+			if (isBuffered(t)) { sum += recentGrants[base + (int) (t % WINDOW)]; }
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the most XP units granted by the source in any single second of the last WINDOW seconds
+	 */
+	public long getPeakUnits(XpSource source, long worldTime)
+	{
+		long peak = 0L, now = worldTime / 20L;
+		int base = source.ordinal() * WINDOW;
+		for (long t = now - WINDOW + 1; t <= now; ++t) {
+			if (isBuffered(t)) { peak = Math.max(peak, recentUnits[base + (int) (t % WINDOW)]); }
+		}
+		return peak;
+	}
+
+	/**
+	 * Writes all data to the stream: number of sources (byte), then for each source in XpSource order
+	 * its total units (long), total grants (int) and WINDOW bucket amounts in units (long), oldest first
+	 */
+	public void writeToStream(DataOutputStream outputStream, long worldTime) throws IOException
+	{
+		long now = worldTime / 20L;
+		outputStream.writeByte(SOURCES);
+		for (int s = 0; s < SOURCES; ++s) {
+			outputStream.writeLong(totalUnits[s]);
+			outputStream.writeInt(totalGrants[s]);
+			for (long t = now - WINDOW + 1; t <= now; ++t) {
+				outputStream.writeLong(isBuffered(t) ? recentUnits[s * WINDOW + (int) (t % WINDOW)] : 0L);
+			}
+		}
+	}
+
+	/** Returns true if the bucket for second t still holds that second's data */
+	private boolean isBuffered(long t) { return t >= 0L && t <= currentSecond && t > currentSecond - WINDOW; }
+
+	/** Moves the newest bucket forward to the given second, clearing buckets that fall out of the window */
+	private void advance(long second)
+	{
+		if (second == currentSecond) { return; }
+		if (second < currentSecond || second - currentSecond >= WINDOW) {
+			Arrays.fill(recentUnits, 0L);
+			Arrays.fill(recentGrants, 0);
+		} else {
+			for (long t = currentSecond + 1; t <= second; ++t) {
+				int index = (int) (t % WINDOW);
+				for (int slot = index; slot < recentUnits.length; slot += WINDOW) {
+					recentUnits[slot] = 0L;
+					recentGrants[slot] = 0;
+				}
+			}
+		}
+		currentSecond = second;
+	}
+}
@@ -18,10 +18,14 @@ import net.minecraft.network.packet.Packet70GameEvent;
 import net.minecraft.util.AxisAlignedBB;
 import net.minecraft.util.DamageSource;
 import net.minecraft.util.EntityDamageSourceIndirect;
+import net.minecraft.util.EnumMovingObjectType;
 import net.minecraft.util.MathHelper;
 import net.minecraft.util.MovingObjectPosition;
 import net.minecraft.util.Vec3;
 import net.minecraft.world.World;
+import coolalias.skillsmod.SkillsMod;
+import coolalias.skillsmod.util.FastMath;
+import coolalias.skillsmod.util.RayMath;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -36,11 +40,26 @@ import cpw.mods.fml.relauncher.SideOnly;
  */
 public class EntityCustomArrow extends EntityArrow implements IProjectile
 {
+	/** Interval, in ticks, at which the server updates rotation; matches vanilla arrow tracking frequency */
+	protected static final int ROTATION_SYNC_INTERVAL = 20;
+
 	/** Private fields from EntityArrow are now protected instead */
 	protected int xTile = -1, yTile = -1, zTile = -1, inTile, inData;
 	protected int ticksInGround, ticksInAir;
 	protected boolean inGround;
 
+	/** Number of ticks an arrow may remain stuck in the ground before despawning */
+	protected static final int MAX_TICKS_IN_GROUND = 1200;
+
+	/** True while stuck in the ground and not updating; see sleep() */
+	private boolean sleeping;
+
+	/** World time at which a sleeping arrow will despawn */
+	private long despawnTime;
+
+	/** Result reused for every entity hit detected by checkForImpact */
+	private MovingObjectPosition entityHitResult;
+
 	/** damage and knockback have getters and setters, so can be private */
 	private double damage = 2.0D;
 	private int knockbackStrength;
@@ -88,6 +107,10 @@ public class EntityCustomArrow extends EntityArrow implements IProjectile
 	@Override
 	public void onUpdate()
 	{
+		if (this.sleeping) {
+			if (this.worldObj.getTotalWorldTime() >= this.despawnTime) { this.setDead(); }
+			return;
+		}
 		// This calls the Entity class' update method directly, circumventing EntityArrow
 		super.onEntityUpdate();
 		this.updateAngles();
@@ -97,6 +120,41 @@ public class EntityCustomArrow extends EntityArrow implements IProjectile
 		else { this.updateInAir(); }
 	}
 
+	/**
+	 * Stops updating this arrow while it remains stuck in the ground. It is woken up by the
+	 * world's StuckArrowIndex when the block it is stuck in changes; otherwise it despawns at
+	 * the same time it would have if it kept updating. Players can still pick it up, as that
+	 * is handled by the player colliding with it.
+	 */
+	protected void sleep()
+	{
+		if (this.sleeping) { return; }
+		this.sleeping = true;
+		this.despawnTime = this.worldObj.getTotalWorldTime() + (MAX_TICKS_IN_GROUND - this.ticksInGround);
+		StuckArrowIndex.get(this.worldObj).add(this, this.xTile, this.yTile, this.zTile);
+	}
+
+	/**
+	 * Resumes normal updates for a sleeping arrow; it checks its block again on the next update
+	 */
+	public void wakeUp()
+	{
+		if (!this.sleeping) { return; }
+		this.sleeping = false;
+		this.ticksInGround = MAX_TICKS_IN_GROUND - (int) Math.max(this.despawnTime - this.worldObj.getTotalWorldTime(), 1L);
+		StuckArrowIndex.get(this.worldObj).remove(this, this.xTile, this.yTile, this.zTile);
+	}
+
+	/** Returns true if this arrow is stuck in the ground and not currently updating */
+	public boolean isSleeping() { return this.sleeping; }
+
+	@Override
+	public void setDead()
+	{
+		this.wakeUp();
+		super.setDead();
+	}
+
 	/**
 	 * @param wobble value of 1.0F sets true heading; other values will cause trajectory to vary from expected (Skeletons use this to simulate 'missing')
 	 */
@@ -240,29 +298,18 @@ public class EntityCustomArrow extends EntityArrow implements IProjectile
 		this.posX += this.motionX;
 		this.posY += this.motionY;
 		this.posZ += this.motionZ;
-		float f2 = MathHelper.sqrt_double(this.motionX * this.motionX + this.motionZ * this.motionZ);
-		this.rotationYaw = (float)(Math.atan2(this.motionX, this.motionZ) * 180.0D / Math.PI);
-
-		for (this.rotationPitch = (float)(Math.atan2(this.motionY, (double) f2) * 180.0D / Math.PI); this.rotationPitch - this.prevRotationPitch < -180.0F; this.prevRotationPitch -= 360.0F)
-		{ ; }
-
-		while (this.rotationPitch - this.prevRotationPitch >= 180.0F)
-		{ this.prevRotationPitch += 360.0F; }
 
-		while (this.rotationYaw - this.prevRotationYaw < -180.0F)
-		{ this.prevRotationYaw -= 360.0F; }
-
-		while (this.rotationYaw - this.prevRotationYaw >= 180.0F)
-		{ this.prevRotationYaw += 360.0F; }
+		// rotation is only used for rendering; the server just needs a reasonable value for tracking updates
+		if (this.worldObj.isRemote) { this.updateRotation(); }
+		else if (this.ticksExisted % ROTATION_SYNC_INTERVAL == 0) { this.setRotationFromMotion(); }
 
-		this.rotationPitch = this.prevRotationPitch + (this.rotationPitch - this.prevRotationPitch) * 0.2F;
-		this.rotationYaw = this.prevRotationYaw + (this.rotationYaw - this.prevRotationYaw) * 0.2F;
 		float f4 = 0.99F;
 		float f1 = 0.05F;
 
 		if (this.isInWater())
 		{
-			for (int i = 0; i < 4; ++i) {
+			int count = SkillsMod.proxy.getParticleAllowance(this.worldObj, this.posX, this.posY, this.posZ, 4);
+			for (int i = 0; i < count; ++i) {
 				float f3 = 0.25F;
 				this.worldObj.spawnParticle("bubble", this.posX - this.motionX * (double) f3, this.posY - this.motionY * (double) f3, this.posZ - this.motionZ * (double) f3, this.motionX, this.motionY, this.motionZ);
 			}
@@ -274,6 +321,41 @@ public class EntityCustomArrow extends EntityArrow implements IProjectile
 		this.setPosition(this.posX, this.posY, this.posZ);
 	}
 
+	/**
+	 * Smoothly turns yaw and pitch towards the current heading; uses an approximate atan2
+	 * since the result is only used for rendering
+	 */
+	protected void updateRotation()
+	{
+		float f2 = MathHelper.sqrt_double(this.motionX * this.motionX + this.motionZ * this.motionZ);
+		this.rotationYaw = FastMath.atan2Degrees(this.motionX, this.motionZ);
+
+		for (this.rotationPitch = FastMath.atan2Degrees(this.motionY, (double) f2); this.rotationPitch - this.prevRotationPitch < -180.0F; this.prevRotationPitch -= 360.0F)
+		{ ; }
+
+		while (this.rotationPitch - this.prevRotationPitch >= 180.0F)
+		{ this.prevRotationPitch += 360.0F; }
+
+		while (this.rotationYaw - this.prevRotationYaw < -180.0F)
+		{ this.prevRotationYaw -= 360.0F; }
+
+		while (this.rotationYaw - this.prevRotationYaw >= 180.0F)
+		{ this.prevRotationYaw += 360.0F; }
+
+		this.rotationPitch = this.prevRotationPitch + (this.rotationPitch - this.prevRotationPitch) * 0.2F;
+		this.rotationYaw = this.prevRotationYaw + (this.rotationYaw - this.prevRotationYaw) * 0.2F;
+	}
+
+	/**
+	 * Sets yaw and pitch to match the current heading, without smoothing
+	 */
+	protected void setRotationFromMotion()
+	{
+		float f = MathHelper.sqrt_double(this.motionX * this.motionX + this.motionZ * this.motionZ);
+		this.prevRotationYaw = this.rotationYaw = (float)(Math.atan2(this.motionX, this.motionZ) * 180.0D / Math.PI);
+		this.prevRotationPitch = this.rotationPitch = (float)(Math.atan2(this.motionY, (double) f) * 180.0D / Math.PI);
+	}
+
 	/**
 	 * Adjusts arrow's motion: multiplies each by factor, subtracts adjustY from motionY
 	 */
@@ -298,6 +380,8 @@ public class EntityCustomArrow extends EntityArrow implements IProjectile
 
 			if (axisalignedbb != null && axisalignedbb.isVecInside(this.worldObj.getWorldVec3Pool().getVecFromPool(this.posX, this.posY, this.posZ)))
 			{
+				// the server only refreshes rotation periodically in flight; fix it for good before sticking
+				if (!this.inGround && !this.worldObj.isRemote) { this.setRotationFromMotion(); }
 				this.inGround = true;
 			}
 		}
@@ -314,7 +398,9 @@ public class EntityCustomArrow extends EntityArrow implements IProjectile
 		if (j == this.inTile && k == this.inData)
 		{
 			++this.ticksInGround;
-			if (this.ticksInGround == 1200) { this.setDead(); }
+			if (this.ticksInGround >= MAX_TICKS_IN_GROUND) { this.setDead(); }
+			// nothing left to do until the block changes, or this arrow is picked up or despawns
+			else if (this.arrowShake <= 0 && !this.isBurning()) { this.sleep(); }
 		}
 		else
 		{
@@ -348,11 +434,12 @@ public class EntityCustomArrow extends EntityArrow implements IProjectile
 	protected void spawnTrailingParticles()
 	{
 		if (this.getIsCritical()) {
-			for (int i = 0; i < 4; ++i) {
+			int count = SkillsMod.proxy.getParticleAllowance(this.worldObj, this.posX, this.posY, this.posZ, 4);
+			for (int i = 0; i < count; ++i) {
 				this.worldObj.spawnParticle("crit",
-						this.posX + this.motionX * (double) i / 4.0D,
-						this.posY + this.motionY * (double) i / 4.0D,
-						this.posZ + this.motionZ * (double) i / 4.0D,
+						this.posX + this.motionX * (double) i / (double) count,
+						this.posY + this.motionY * (double) i / (double) count,
+						this.posZ + this.motionZ * (double) i / (double) count,
 						-this.motionX, -this.motionY + 0.2D, -this.motionZ);
 			}
 		}
@@ -360,46 +447,44 @@ public class EntityCustomArrow extends EntityArrow implements IProjectile
 
 	/**
 	 * Returns MovingObjectPosition of Entity or Block impacted, or null if nothing was struck
+	 * NOTE: the result for an entity hit is reused by this arrow, so don't hold on to it
 	 */
 	protected MovingObjectPosition checkForImpact()
 	{
 		Vec3 vec3 = this.worldObj.getWorldVec3Pool().getVecFromPool(this.posX, this.posY, this.posZ);
 		Vec3 vec31 = this.worldObj.getWorldVec3Pool().getVecFromPool(this.posX + this.motionX, this.posY + this.motionY, this.posZ + this.motionZ);
 		MovingObjectPosition mop = this.worldObj.rayTraceBlocks_do_do(vec3, vec31, false, true);
-		vec3 = this.worldObj.getWorldVec3Pool().getVecFromPool(this.posX, this.posY, this.posZ);
-		vec31 = this.worldObj.getWorldVec3Pool().getVecFromPool(this.posX + this.motionX, this.posY + this.motionY, this.posZ + this.motionZ);
 
-		if (mop != null) {
-			vec31 = this.worldObj.getWorldVec3Pool().getVecFromPool(mop.hitVec.xCoord, mop.hitVec.yCoord, mop.hitVec.zCoord);
-		}
+		// entity ray runs from the current position to the block hit, if any, or to the end of this tick's motion
+		double dx = mop != null ? mop.hitVec.xCoord - this.posX : this.motionX;
+		double dy = mop != null ? mop.hitVec.yCoord - this.posY : this.motionY;
+		double dz = mop != null ? mop.hitVec.zCoord - this.posZ : this.motionZ;
 
 		Entity entity = null;
-		List list = this.worldObj.getEntitiesWithinAABBExcludingEntity(this, this.boundingBox.addCoord(this.motionX, this.motionY, this.motionZ).expand(1.0D, 1.0D, 1.0D));
-		double d0 = 0.0D;
 		double hitBox = 0.3D;
+		// every entity whose box, expanded by hitBox, the ray can hit, from the shared broadphase
+		List<Entity> list = EntitySpatialHash.get(this.worldObj).getEntitiesAlongSegment(this, this.posX, this.posY, this.posZ, dx, dy, dz, hitBox);
+		// fraction along the ray of the nearest entity hit; zero means none yet, as in EntityArrow
+		double d0 = 0.0D;
 
 		for (int i = 0; i < list.size(); ++i)
 		{
-			Entity entity1 = (Entity) list.get(i);
+			Entity entity1 = list.get(i);
 
 			if (entity1.canBeCollidedWith() && (entity1 != this.shootingEntity || this.ticksInAir >= 5))
 			{
-				AxisAlignedBB axisalignedbb = entity1.boundingBox.expand(hitBox, hitBox, hitBox);
-				MovingObjectPosition mop1 = axisalignedbb.calculateIntercept(vec3, vec31);
+				AxisAlignedBB bb = entity1.boundingBox;
+				double d1 = RayMath.intersectBox(this.posX, this.posY, this.posZ, dx, dy, dz,
+						bb.minX - hitBox, bb.minY - hitBox, bb.minZ - hitBox, bb.maxX + hitBox, bb.maxY + hitBox, bb.maxZ + hitBox);
 
-				if (mop1 != null)
-				{
-					double d1 = vec3.distanceTo(mop1.hitVec);
-
-					if (d1 < d0 || d0 == 0.0D) {
-						entity = entity1;
-						d0 = d1;
-					}
+				if (d1 >= 0.0D && (d1 < d0 || d0 == 0.0D)) {
+					entity = entity1;
+					d0 = d1;
 				}
 			}
 		}
 
-		if (entity != null) { mop = new MovingObjectPosition(entity); }
+		if (entity != null) { mop = getEntityHitResult(entity); }
 
 		if (mop != null && mop.entityHit instanceof EntityPlayer)
 		{
@@ -414,6 +499,21 @@ public class EntityCustomArrow extends EntityArrow implements IProjectile
 		return mop;
 	}
 
+	/**
+	 * Returns this arrow's reusable MovingObjectPosition set up for a hit on the given entity
+	 */
+	private MovingObjectPosition getEntityHitResult(Entity entity)
+	{
+		if (this.entityHitResult == null) {
+			this.entityHitResult = new MovingObjectPosition(entity);
+		} else {
+			this.entityHitResult.typeOfHit = EnumMovingObjectType.ENTITY;
+			this.entityHitResult.entityHit = entity;
+			this.entityHitResult.hitVec = this.worldObj.getWorldVec3Pool().getVecFromPool(entity.posX, entity.posY, entity.posZ);
+		}
+		return this.entityHitResult;
+	}
+
 	/**
 	 * Called when custom arrow impacts an entity or block
 	 */
@@ -481,6 +581,8 @@ public class EntityCustomArrow extends EntityArrow implements IProjectile
 		this.posY -= this.motionY / (double) f2 * 0.05000000074505806D;
 		this.posZ -= this.motionZ / (double) f2 * 0.05000000074505806D;
 		this.playSound("random.bowhit", 1.0F, 1.2F / (this.rand.nextFloat() * 0.2F + 0.9F));
+		// the server only refreshes rotation periodically in flight; fix it for good before sticking
+		if (!this.worldObj.isRemote) { this.setRotationFromMotion(); }
 		this.inGround = true;
 		this.arrowShake = 7;
 		this.setIsCritical(false);
@@ -0,0 +1,257 @@
+package coolalias.skillsmod.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.util.AxisAlignedBB;
+import net.minecraft.world.World;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Broadphase shared by all custom projectiles in a world. The first query in each world tick
+ * buckets every collidable entity into a hash of 4x4x4 cells by the center of its bounding box;
+ * every following query that tick only looks at the cells overlapping the query box, instead of
+ * each projectile scanning the world's chunk entity lists for itself.
+ *
+ * Entities updated later in the tick may have moved away from the cell they were hashed in, so
+ * queries are padded by the largest entity half-extent plus the largest distance any hashed
+ * entity moved last tick or is about to move with its current motion, plus MOVE_PADDING for
+ * changes of motion during the tick. Entities spawned after the hash was built are added as they
+ * join the world (see SkillsWorldAccess.onEntityCreate). Candidates are then tested against their
+ * current bounding box, so results match a normal AABB query. Teleports are not accounted for.
+ *
+ * Projectiles use getEntitiesAlongSegment, which only visits the cells near their path rather
+ * than every cell of the box around it.
+ *
+ * Queries must be made from the thread that ticks the world.
+ *
+ */
+public class EntitySpatialHash
+{
+	/** Cells are 1 << CELL_SHIFT blocks wide */
+	private static final int CELL_SHIFT = 2;
+
+	/** Extra distance added to queries for entities speeding up (e.g. knockback) after the hash was built */
+	private static final double MOVE_PADDING = 0.5D;
+
+	/** Each hash refers to its world, so the weak keys alone never let go; entries are removed by unload */
+	private static final Map<World, EntitySpatialHash> hashes = Collections.synchronizedMap(new WeakHashMap<World, EntitySpatialHash>());
+
+	/** Returns the spatial hash for this world, creating it if necessary */
+	public static EntitySpatialHash get(World world)
+	{
+		EntitySpatialHash hash = hashes.get(world);
+		if (hash == null) {
+			hash = new EntitySpatialHash(world);
+			hashes.put(world, hash);
+		}
+		return hash;
+	}
+
+	/** Discards the spatial hash for this world; called when the world is unloaded */
+	public static void unload(World world) { hashes.remove(world); }
+
+	/** Adds a newly spawned entity to its world's hash, if the hash was already built this tick */
+	public static void onEntityAdded(Entity entity)
+	{
+		EntitySpatialHash hash = hashes.get(entity.worldObj);
+		if (hash != null && hash.builtTime == entity.worldObj.getTotalWorldTime()) { hash.add(entity); }
+	}
+
+	private final World world;
+
+	/** World time at which the hash was last built */
+	private long builtTime = Long.MIN_VALUE;
+
+	/** Hashed entities and, for each, the index of the next entity in the same cell or -1 */
+	private Entity[] entities = new Entity[256];
+	private int[] next = new int[256];
+	private int size;
+
+	/** Open-addressed table of cell keys and index of the first entity in each cell, or -1 if empty */
+	private long[] cellKeys = new long[512];
+	private int[] cellHeads = new int[512];
+
+	/** Largest bounding box half-extent of any hashed entity */
+	private double maxExtent;
+
+	/** Largest distance along any axis that a hashed entity moved last tick or is moving this tick */
+	private double maxMove;
+
+	/** Reused result list; only valid until the next query */
+	private final List<Entity> results = new ArrayList<Entity>();
+
+	/** Number of queries and candidate entities tested since the last call to resetStats */
+	private int queries, candidates;
+
+	private EntitySpatialHash(World world) { this.world = world; }
+
+	/**
+	 * Returns all entities other than 'exclude' that can be collided with and whose bounding box
+	 * intersects the given box. The returned list is reused and only valid until the next query.
+	 */
+	public List<Entity> getEntitiesInBox(Entity exclude, double minX, double minY, double minZ, double maxX, double maxY, double maxZ)
+	{
+		if (world.getTotalWorldTime() != builtTime) { build(); }
+		results.clear();
+		++queries;
+		double pad = getPadding();
+		int x0 = cell(minX - pad), y0 = cell(minY - pad), z0 = cell(minZ - pad);
+		int x1 = cell(maxX + pad), y1 = cell(maxY + pad), z1 = cell(maxZ + pad);
+		for (int cx = x0; cx <= x1; ++cx) {
+			for (int cy = y0; cy <= y1; ++cy) {
+				for (int cz = z0; cz <= z1; ++cz) {
+					collect(cx, cy, cz, exclude, minX, minY, minZ, maxX, maxY, maxZ);
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Returns all entities other than 'exclude' that can be collided with and whose bounding box,
+	 * expanded by 'radius', may be touched by the segment from (x, y, z) to (x + dx, y + dy, z + dz):
+	 * every entity whose expanded box the segment passes through is included, along with some
+	 * that are merely close. Only the cells near the segment are visited, one slice at a time
+	 * along its longest axis. The returned list is reused and only valid until the next query.
+	 */
+	public List<Entity> getEntitiesAlongSegment(Entity exclude, double x, double y, double z, double dx, double dy, double dz, double radius)
+	{
+		double minX = Math.min(x, x + dx) - radius, minY = Math.min(y, y + dy) - radius, minZ = Math.min(z, z + dz) - radius;
+		double maxX = Math.max(x, x + dx) + radius, maxY = Math.max(y, y + dy) + radius, maxZ = Math.max(z, z + dz) + radius;
+		double ax = Math.abs(dx), ay = Math.abs(dy), az = Math.abs(dz);
+		// short segments are covered by only a few cells anyway
+		if (Math.max(ax, Math.max(ay, az)) < (1 << CELL_SHIFT)) { return getEntitiesInBox(exclude, minX, minY, minZ, maxX, maxY, maxZ); }
+		if (world.getTotalWorldTime() != builtTime) { build(); }
+		results.clear();
+		++queries;
+		double reach = getPadding() + radius;
+		// axis 0, 1 or 2 (x, y or z) along which the segment is longest; the other two are u and v
+		int axis = ax >= ay && ax >= az ? 0 : ay >= az ? 1 : 2;
+		double start = axis == 0 ? x : axis == 1 ? y : z, delta = axis == 0 ? dx : axis == 1 ? dy : dz;
+		double u = axis == 0 ? y : x, du = axis == 0 ? dy : dx;
+		double v = axis == 2 ? y : z, dv = axis == 2 ? dy : dz;
+		int s0 = cell(Math.min(start, start + delta) - reach), s1 = cell(Math.max(start, start + delta) + reach);
+		for (int s = s0; s <= s1; ++s)
+		{
+			// part of the segment within 'reach' of this slice of cells
+			double t0 = ((s << CELL_SHIFT) - reach - start) / delta, t1 = (((s + 1) << CELL_SHIFT) + reach - start) / delta;
+			double tMin = Math.max(0.0D, Math.min(t0, t1)), tMax = Math.min(1.0D, Math.max(t0, t1));
+			if (tMin > tMax) { continue; }
+			int u0 = cell(Math.min(u + du * tMin, u + du * tMax) - reach), u1 = cell(Math.max(u + du * tMin, u + du * tMax) + reach);
+			int v0 = cell(Math.min(v + dv * tMin, v + dv * tMax) - reach), v1 = cell(Math.max(v + dv * tMin, v + dv * tMax) + reach);
+			for (int cu = u0; cu <= u1; ++cu) {
+				for (int cv = v0; cv <= v1; ++cv) {
+					if (axis == 0) { collect(s, cu, cv, exclude, minX, minY, minZ, maxX, maxY, maxZ); }
+					else if (axis == 1) { collect(cu, s, cv, exclude, minX, minY, minZ, maxX, maxY, maxZ); }
+					else { collect(cu, cv, s, exclude, minX, minY, minZ, maxX, maxY, maxZ); }
+				}
+			}
+		}
+		return results;
+	}
+
+	/** Adds the entities hashed in this cell that match the query to the results */
+	private void collect(int cx, int cy, int cz, Entity exclude, double minX, double minY, double minZ, double maxX, double maxY, double maxZ)
+	{
+		for (int i = findHead(key(cx, cy, cz)); i >= 0; i = next[i]) {
+			Entity entity = entities[i];
+			++candidates;
+			if (entity != exclude && !entity.isDead && entity.canBeCollidedWith() && intersects(entity.boundingBox, minX, minY, minZ, maxX, maxY, maxZ)) {
+				results.add(entity);
+			}
+		}
+	}
+
+	/** Distance by which an entity's hashed cell may be off from where its bounding box is now */
+	private double getPadding() { return maxExtent + maxMove + MOVE_PADDING; }
+
+	/** Returns the number of queries made since the last reset */
+	public int getQueryCount() { return queries; }
+
+	/** Returns the number of candidate entities tested since the last reset */
+	public int getCandidateCount() { return candidates; }
+
+	/** Resets the query and candidate counters */
+	public void resetStats() { queries = candidates = 0; }
+
+	/**
+	 * Hashes all collidable entities currently loaded in the world
+	 */
+	private void build()
+	{
+		builtTime = world.getTotalWorldTime();
+		List loaded = world.loadedEntityList;
+		int count = loaded.size();
+		if (entities.length < count) {
+			entities = new Entity[count * 2];
+			next = new int[count * 2];
+		} else {
+			Arrays.fill(entities, null);
+		}
+		int capacity = cellHeads.length;
+		while (capacity < count * 2) { capacity <<= 1; }
+		if (capacity != cellHeads.length) {
+			cellKeys = new long[capacity];
+			cellHeads = new int[capacity];
+		}
+		Arrays.fill(cellHeads, -1);
+		size = 0;
+		maxExtent = maxMove = 0.0D;
+		for (int i = 0; i < count; ++i) { add((Entity) loaded.get(i)); }
+	}
+
+	/**
+	 * Hashes the entity if it can be collided with; when the table is half full it is rebuilt
+	 * by the next query instead, which picks up the entity from the world's entity list
+	 */
+	private void add(Entity entity)
+	{
+		if (entity.isDead || !entity.canBeCollidedWith()) { return; }
+		if (size == entities.length || size * 2 >= cellHeads.length) {
+			builtTime = Long.MIN_VALUE;
+			return;
+		}
+		AxisAlignedBB bb = entity.boundingBox;
+		maxExtent = Math.max(maxExtent, Math.max(bb.maxX - bb.minX, Math.max(bb.maxY - bb.minY, bb.maxZ - bb.minZ)) * 0.5D);
+		// distance moved last tick, or this tick if already updated, and distance about to be moved
+		double moved = Math.max(Math.abs(entity.posX - entity.prevPosX), Math.max(Math.abs(entity.posY - entity.prevPosY), Math.abs(entity.posZ - entity.prevPosZ)));
+		double moving = Math.max(Math.abs(entity.motionX), Math.max(Math.abs(entity.motionY), Math.abs(entity.motionZ)));
+		maxMove = Math.max(maxMove, Math.max(moved, moving));
+		long key = key(cell((bb.minX + bb.maxX) * 0.5D), cell((bb.minY + bb.maxY) * 0.5D), cell((bb.minZ + bb.maxZ) * 0.5D));
+		int slot = findSlot(key);
+		if (cellHeads[slot] < 0) { cellKeys[slot] = key; }
+		entities[size] = entity;
+		next[size] = cellHeads[slot];
+		cellHeads[slot] = size++;
+	}
+
+	/** Returns the index of the first entity in the cell with this key, or -1 if none */
+	private int findHead(long key) { return cellHeads[findSlot(key)]; }
+
+	/** Returns the table slot holding this key, or the empty slot where it belongs */
+	private int findSlot(long key)
+	{
+		int mask = cellHeads.length - 1;
+		int slot = (int) (key ^ (key >>> 29)) * 0x9E3779B9 & mask;
+		while (cellHeads[slot] >= 0 && cellKeys[slot] != key) { slot = (slot + 1) & mask; }
+		return slot;
+	}
+
+	private static int cell(double coord) { return ((int) Math.floor(coord)) >> CELL_SHIFT; }
+
+	private static long key(int cx, int cy, int cz) {
+		return ((long) (cx & 0x1FFFFF) << 42) | ((long) (cy & 0x1FFFFF) << 21) | (long) (cz & 0x1FFFFF);
+	}
+
+	private static boolean intersects(AxisAlignedBB bb, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		return bb.maxX > minX && bb.minX < maxX && bb.maxY > minY && bb.minY < maxY && bb.maxZ > minZ && bb.minZ < maxZ;
+	}
+}
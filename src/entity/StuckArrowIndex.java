@@ -0,0 +1,107 @@
+package coolalias.skillsmod.entity;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.world.World;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Keeps track of sleeping EntityCustomArrows by the block they are stuck in, so they can be
+ * woken up when that block changes instead of checking it every tick.
+ *
+ * Block changes are reported by SkillsWorldAccess; since that happens for every block update
+ * in the world, a small bit set filters out positions that can't have any arrows before the
+ * map is consulted. Bits are only cleared once no arrows are asleep, so a few false positives
+ * are possible but harmless.
+ *
+ */
+public class StuckArrowIndex
+{
+	/** Sleeping arrows refer to their world, so the weak keys alone never let go; entries are removed by unload */
+	private static final Map<World, StuckArrowIndex> indexes = Collections.synchronizedMap(new WeakHashMap<World, StuckArrowIndex>());
+
+	/** Returns the index for this world, creating it if necessary */
+	public static StuckArrowIndex get(World world)
+	{
+		StuckArrowIndex index = indexes.get(world);
+		if (index == null) {
+			index = new StuckArrowIndex();
+			indexes.put(world, index);
+		}
+		return index;
+	}
+
+	/** Returns the index for this world or null if no arrow has ever slept in it */
+	public static StuckArrowIndex getIfPresent(World world) { return indexes.get(world); }
+
+	/** Discards the index for this world; called when the world is unloaded */
+	public static void unload(World world) { indexes.remove(world); }
+
+	private static final int FILTER_BITS = 4096;
+
+	private final BitSet filter = new BitSet(FILTER_BITS);
+
+	private final Map<Long, List<EntityCustomArrow>> sleeping = new HashMap<Long, List<EntityCustomArrow>>();
+
+	private int count;
+
+	private StuckArrowIndex() {}
+
+	/** Returns the number of arrows currently asleep */
+	public int size() { return count; }
+
+	/** Adds a sleeping arrow stuck in the block at x, y, z */
+	public void add(EntityCustomArrow arrow, int x, int y, int z)
+	{
+		long key = key(x, y, z);
+		List<EntityCustomArrow> list = sleeping.get(key);
+		if (list == null) {
+			list = new ArrayList<EntityCustomArrow>(1);
+			sleeping.put(key, list);
+		}
+		list.add(arrow);
+		filter.set(bit(key));
+		++count;
+	}
+
+	/** Removes the arrow stuck in the block at x, y, z, if present */
+	public void remove(EntityCustomArrow arrow, int x, int y, int z)
+	{
+		long key = key(x, y, z);
+		List<EntityCustomArrow> list = sleeping.get(key);
+		if (list != null && list.remove(arrow)) {
+			if (list.isEmpty()) { sleeping.remove(key); }
+			if (--count == 0) { filter.clear(); }
+		}
+	}
+
+	/**
+	 * Wakes up all arrows stuck in the block at x, y, z; called whenever a block changes
+	 */
+	public void onBlockChanged(int x, int y, int z)
+	{
+		if (count == 0) { return; }
+		long key = key(x, y, z);
+		if (!filter.get(bit(key))) { return; }
+		List<EntityCustomArrow> list = sleeping.remove(key);
+		if (list != null) {
+			count -= list.size();
+			for (int i = 0; i < list.size(); ++i) { list.get(i).wakeUp(); }
+			if (count == 0) { filter.clear(); }
+		}
+	}
+
+	private static long key(int x, int y, int z) {
+		return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (long) (y & 0xFFF);
+	}
+
+	private static int bit(long key) { return (int) ((key ^ (key >>> 32)) * 0x9E3779B9L >>> 20) & (FILTER_BITS - 1); }
+}
@@ -1,13 +1,26 @@
 package coolalias.skillsmod.entity.skill;
 
+import java.util.List;
+import java.util.UUID;
+
 import net.minecraft.block.Block;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.projectile.EntityFireball;
 import net.minecraft.util.DamageSource;
+import net.minecraft.util.MathHelper;
 import net.minecraft.util.MovingObjectPosition;
 import net.minecraft.util.Vec3;
 import net.minecraft.world.World;
 
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+
+import coolalias.skillsmod.SkillsMod;
+import coolalias.skillsmod.entity.EntitySpatialHash;
+import coolalias.skillsmod.util.RayMath;
+import cpw.mods.fml.common.registry.IEntityAdditionalSpawnData;
+
 /**
  * 
  * @author coolAlias
@@ -15,13 +28,36 @@ import net.minecraft.world.World;
  * Extending EntityFireball results in some derpy collision-detection and
  * other oddities. Perhaps try EntityThrowable instead
  * 
+ * The exact position, motion, level and shooter are sent once in the spawn packet, after which
+ * the client simulates the flight itself; the entity is registered without periodic position
+ * or velocity updates, so the server only sends a correction (see sendCorrection) when its
+ * flight diverges from what the client would compute: when it enters or leaves water, as the
+ * drag changes and the client's view of the blocks it passes through may be out of date.
+ * 
+ * Does not use EntityFireball's update: each tick the whole segment travelled is tested on the
+ * server as a swept sphere against entities from the shared broadphase, and as a ray against
+ * blocks, so fast fire blasts can't tunnel through thin targets.
+ * 
  */
-public class EntityFireBlast extends EntityFireball
+public class EntityFireBlast extends EntityFireball implements IEntityAdditionalSpawnData
 {
 	private static final int BURN_TIME = 4;
-	private float damage = 5.0F;
+	private static final float BASE_DAMAGE = 5.0F;
+	private float damage = BASE_DAMAGE;
 	private static final float SPEED = 1.5F;
 	
+	/** Radius of the swept sphere used to hit entities; same reach as vanilla's 0.3 box expansion */
+	private static final double HIT_RADIUS = 0.3D;
+	
+	/** Number of ticks before the shooter can be hit by its own fire blast */
+	private static final int SHOOTER_GRACE_TICKS = 25;
+	
+	/** Level of the skill used to create this fire blast */
+	private int level = 0;
+	
+	/** Whether the fire blast was in water last tick, on the server; a change is sent as a correction */
+	private boolean wasInWater;
+	
 	public EntityFireBlast(World world) {
 		super(world);
 	}
@@ -31,13 +67,7 @@ public class EntityFireBlast extends EntityFireball
 	 */
 	public EntityFireBlast(World world, EntityLivingBase entity) {
 		super(world);
-		this.shootingEntity = entity;
-		Vec3 vec3 = entity.getLookVec().normalize();
-		this.posX = entity.posX + vec3.xCoord * 4.0D;
-		// TODO refine y position to better match cross-hair location
-		this.posY = entity.posY + vec3.yCoord + entity.getEyeHeight() / 2.0D;
-		this.posZ = entity.posZ + vec3.zCoord * 4.0D;
-		setMotion(entity.getLookVec());
+		reset(entity, 0);
 	}
 
 	public EntityFireBlast(World world, double posX, double posY, double posZ, double motX, double motY, double motZ) {
@@ -53,6 +83,46 @@ public class EntityFireBlast extends EntityFireball
 		super(world, entity, par3, par5, par7);
 	}
 	
+	/**
+	 * Reinitializes this fire blast as if newly fired by the entity at the given level, so that
+	 * an instance from the FireBlastPool can be spawned again; returns itself for convenience.
+	 * The pool gives recycled instances a new entity id and UUID before calling this.
+	 */
+	EntityFireBlast reset(EntityLivingBase entity, int level)
+	{
+		this.isDead = false;
+		this.addedToChunk = false;
+		this.ticksExisted = 0;
+		this.extinguish();
+		this.wasInWater = false;
+		this.isAirBorne = this.velocityChanged = false;
+		this.accelerationX = this.accelerationY = this.accelerationZ = 0.0D;
+		this.shootingEntity = entity;
+		this.damage = BASE_DAMAGE;
+		this.setLevel(level);
+		
+		// same as entity.getLookVec(), which is already normalized, without allocating a Vec3
+		float cosPitch = MathHelper.cos(-entity.rotationPitch * 0.017453292F);
+		double lookX = -MathHelper.sin(-entity.rotationYaw * 0.017453292F - (float) Math.PI) * cosPitch;
+		double lookY = MathHelper.sin(-entity.rotationPitch * 0.017453292F);
+		double lookZ = -MathHelper.cos(-entity.rotationYaw * 0.017453292F - (float) Math.PI) * cosPitch;
+		// TODO refine y position to better match cross-hair location
+		this.setPosition(entity.posX + lookX * 4.0D, entity.posY + lookY + entity.getEyeHeight() / 2.0D, entity.posZ + lookZ * 4.0D);
+		this.prevPosX = this.lastTickPosX = this.posX;
+		this.prevPosY = this.lastTickPosY = this.posY;
+		this.prevPosZ = this.lastTickPosZ = this.posZ;
+		this.motionX = lookX * SPEED;
+		this.motionY = lookY * SPEED;
+		this.motionZ = lookZ * SPEED;
+		return this;
+	}
+	
+	/** Gives this instance a new entity id and UUID, so that a recycled fire blast is a different entity to trackers and clients */
+	void renewIdentity(int entityId) {
+		this.entityId = entityId;
+		this.entityUniqueID = UUID.randomUUID();
+	}
+	
 	/**
 	 * Sets shooting entity; returns itself for convenience
 	 */
@@ -65,22 +135,144 @@ public class EntityFireBlast extends EntityFireball
 	 * Adds 1 point of damage per level; returns itself for convenience
 	 */
 	public EntityFireBlast setLevel(int level) {
+		this.level = level;
 		this.damage += (float) level;
 		return this;
 	}
 	
+	/** Returns the level of the skill used to create this fire blast */
+	public int getLevel() { return level; }
+	
 	/**
-	 * Sets entity in motion based on vector; uses pre-defined speed value
+	 * Called on the server whenever position or motion is changed by anything the client can't
+	 * predict; the tracker then sends the current position and velocity on its next update
 	 */
-	public void setMotion(Vec3 vec3) {
-		vec3.normalize();
-		this.motionX = vec3.xCoord * SPEED;
-		this.motionY = vec3.yCoord * SPEED;
-		this.motionZ = vec3.zCoord * SPEED;
+	protected void sendCorrection() {
+		this.isAirBorne = true;
+		this.velocityChanged = true;
 	}
 	
 	@Override
 	public boolean attackEntityFrom(DamageSource par1DamageSource, float par2) { return false; }
+	
+	@Override
+	public void onUpdate()
+	{
+		if (!this.worldObj.isRemote && !this.worldObj.blockExists(MathHelper.floor_double(this.posX), MathHelper.floor_double(this.posY), MathHelper.floor_double(this.posZ)))
+		{
+			this.setDead();
+			return;
+		}
+		
+		// skip EntityFireball.onUpdate entirely, but keep the base entity tick
+		this.onEntityUpdate();
+		// water puts it out every tick, so only keep it burning out of water rather than flip the flag back and forth
+		if (!this.isInWater()) { this.setFire(1); }
+		
+		if (!this.worldObj.isRemote) {
+			MovingObjectPosition mop = this.checkForImpact();
+			if (mop != null) {
+				this.onImpact(mop);
+				if (this.isDead) { return; }
+			}
+		}
+		
+		// no rotation update; RenderFireball always faces the camera
+		float drag = 0.95F;
+		if (this.isInWater()) {
+			int count = SkillsMod.proxy.getParticleAllowance(this.worldObj, this.posX, this.posY, this.posZ, 4);
+			for (int i = 0; i < count; ++i) {
+				float f = 0.25F;
+				this.worldObj.spawnParticle("bubble", this.posX - this.motionX * (double) f, this.posY - this.motionY * (double) f, this.posZ - this.motionZ * (double) f, this.motionX, this.motionY, this.motionZ);
+			}
+			drag = 0.8F;
+		}
+		if (!this.worldObj.isRemote && this.isInWater() != this.wasInWater) {
+			this.wasInWater = this.isInWater();
+			this.sendCorrection();
+		}
+		
+		double x = this.posX + this.motionX, y = this.posY + this.motionY, z = this.posZ + this.motionZ;
+		this.motionX = (this.motionX + this.accelerationX) * (double) drag;
+		this.motionY = (this.motionY + this.accelerationY) * (double) drag;
+		this.motionZ = (this.motionZ + this.accelerationZ) * (double) drag;
+		if (SkillsMod.proxy.getParticleAllowance(this.worldObj, x, y, z, 1) > 0) {
+			this.worldObj.spawnParticle("smoke", x, y + 0.5D, z, 0.0D, 0.0D, 0.0D);
+		}
+		this.setPosition(x, y, z);
+	}
+	
+	/**
+	 * Returns the first block or entity hit by the fire blast along its path this tick, or null
+	 */
+	private MovingObjectPosition checkForImpact()
+	{
+		double dx = this.motionX, dy = this.motionY, dz = this.motionZ;
+		Vec3 start = this.worldObj.getWorldVec3Pool().getVecFromPool(this.posX, this.posY, this.posZ);
+		Vec3 end = this.worldObj.getWorldVec3Pool().getVecFromPool(this.posX + dx, this.posY + dy, this.posZ + dz);
+		MovingObjectPosition mop = this.worldObj.clip(start, end);
+		// entities only count if hit before the block, if any
+		double limit = 1.0D;
+		if (mop != null) {
+			double lengthSq = dx * dx + dy * dy + dz * dz;
+			limit = lengthSq > 0.0D ? Math.sqrt(mop.hitVec.squareDistanceTo(start) / lengthSq) : 0.0D;
+		}
+		
+		double r = HIT_RADIUS;
+		List<Entity> list = EntitySpatialHash.get(this.worldObj).getEntitiesAlongSegment(this, this.posX, this.posY, this.posZ, dx, dy, dz, r);
+		Entity entity = null;
+		double best = limit;
+		for (int i = 0; i < list.size(); ++i)
+		{
+			Entity candidate = list.get(i);
+			if (candidate == this.shootingEntity && this.ticksExisted < SHOOTER_GRACE_TICKS) { continue; }
+			double t = RayMath.intersectSphereBox(this.posX, this.posY, this.posZ, dx, dy, dz, r,
+					candidate.boundingBox.minX, candidate.boundingBox.minY, candidate.boundingBox.minZ,
+					candidate.boundingBox.maxX, candidate.boundingBox.maxY, candidate.boundingBox.maxZ);
+			if (t >= 0.0D && t <= best) {
+				entity = candidate;
+				best = t;
+			}
+		}
+		
+		if (entity != null) {
+			mop = new MovingObjectPosition(entity);
+			mop.hitVec = this.worldObj.getWorldVec3Pool().getVecFromPool(this.posX + dx * best, this.posY + dy * best, this.posZ + dz * best);
+		}
+		return mop;
+	}
+	
+	@Override
+	public void writeSpawnData(ByteArrayDataOutput data)
+	{
+		// the spawn packet's own position is only accurate to 1/32 of a block
+		data.writeDouble(this.posX);
+		data.writeDouble(this.posY);
+		data.writeDouble(this.posZ);
+		data.writeDouble(this.motionX);
+		data.writeDouble(this.motionY);
+		data.writeDouble(this.motionZ);
+		data.writeDouble(this.accelerationX);
+		data.writeDouble(this.accelerationY);
+		data.writeDouble(this.accelerationZ);
+		data.writeByte(this.level);
+		data.writeInt(this.shootingEntity != null ? this.shootingEntity.entityId : -1);
+	}
+	
+	@Override
+	public void readSpawnData(ByteArrayDataInput data)
+	{
+		this.setPosition(data.readDouble(), data.readDouble(), data.readDouble());
+		this.motionX = data.readDouble();
+		this.motionY = data.readDouble();
+		this.motionZ = data.readDouble();
+		this.accelerationX = data.readDouble();
+		this.accelerationY = data.readDouble();
+		this.accelerationZ = data.readDouble();
+		this.setLevel(data.readByte());
+		Entity shooter = this.worldObj.getEntityByID(data.readInt());
+		if (shooter instanceof EntityLivingBase) { this.shootingEntity = (EntityLivingBase) shooter; }
+	}
 
 	@Override
 	protected void onImpact(MovingObjectPosition movingobjectposition)
@@ -0,0 +1,97 @@
+package coolalias.skillsmod.entity.skill;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.world.World;
+import cpw.mods.fml.relauncher.ReflectionHelper;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Per-world pool of EntityFireBlast instances on the server. Fire blasts removed from the world
+ * after dying are handed back by SkillsWorldAccess.onEntityDestroy, in the same pass in which
+ * the entity tracker stops tracking them, and reused by a later cast instead of constructing a
+ * new entity (with its DataWatcher, bounding box, etc.).
+ *
+ * A recycled instance is given a new entity id, taken from the same counter Entity's constructor
+ * uses, and a new UUID before it is reset, so trackers and clients see a new entity; nothing that
+ * still refers to the old fire blast by id can mistake it for the new one.
+ *
+ */
+public class FireBlastPool
+{
+	/** Maximum number of idle fire blasts kept per world */
+	private static final int MAX_SIZE = 64;
+
+	/** Entity's private static id counter; deobfuscated and SRG names */
+	private static final Field nextEntityID = ReflectionHelper.findField(Entity.class, "nextEntityID", "field_70152_a");
+
+	/** Each pool refers to its world, so the weak keys alone never let go; entries are removed by unload */
+	private static final Map<World, FireBlastPool> pools = Collections.synchronizedMap(new WeakHashMap<World, FireBlastPool>());
+
+	/** Returns the fire blast pool for this world, creating it if necessary */
+	public static FireBlastPool get(World world)
+	{
+		FireBlastPool pool = pools.get(world);
+		if (pool == null) {
+			pool = new FireBlastPool(world);
+			pools.put(world, pool);
+		}
+		return pool;
+	}
+
+	/** Discards the fire blast pool for this world; called when the world is unloaded */
+	public static void unload(World world) { pools.remove(world); }
+
+	private final World world;
+
+	/** Idle fire blasts */
+	private final ArrayDeque<EntityFireBlast> idle = new ArrayDeque<EntityFireBlast>(MAX_SIZE);
+
+	private FireBlastPool(World world) { this.world = world; }
+
+	/** Returns the number of idle fire blasts */
+	public int size() { return idle.size(); }
+
+	/**
+	 * Returns a fire blast fired by the entity at the given level, ready to be spawned,
+	 * reusing an idle instance if one is available
+	 */
+	public EntityFireBlast acquire(EntityLivingBase shooter, int level)
+	{
+		EntityFireBlast fireball = idle.pollFirst();
+		if (fireball == null) { return new EntityFireBlast(world, shooter).setLevel(level); }
+		fireball.renewIdentity(nextEntityId());
+		return fireball.reset(shooter, level);
+	}
+
+	/**
+	 * Returns a fire blast to the pool once it has been removed from the world;
+	 * instances that are still alive (e.g. unloaded with their chunk) are ignored
+	 */
+	public void release(EntityFireBlast fireball)
+	{
+		if (world.isRemote || !fireball.isDead || fireball.worldObj != world || idle.size() >= MAX_SIZE) { return; }
+		fireball.shootingEntity = null;
+		idle.addLast(fireball);
+	}
+
+	/** Takes the next id from Entity's counter, exactly as Entity's constructor does */
+	private static int nextEntityId()
+	{
+		try {
+			int id = nextEntityID.getInt(null);
+			nextEntityID.setInt(null, id + 1);
+			return id;
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Unable to assign fire blast entity id", e);
+		}
+	}
+}
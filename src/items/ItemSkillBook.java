@@ -10,9 +10,12 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.world.World;
 import coolalias.skillsmod.SkillInfo;
 import coolalias.skillsmod.SkillsMod;
+import coolalias.skillsmod.XpSource;
 import coolalias.skillsmod.skills.SkillActive;
 import coolalias.skillsmod.skills.SkillBase;
 import coolalias.skillsmod.skills.SkillBase.AttributeCode;
+import coolalias.skillsmod.util.SkillsLog;
+import coolalias.skillsmod.util.SkillsLog.Category;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -56,7 +59,7 @@ public class ItemSkillBook extends ItemBook
 	@SideOnly(Side.CLIENT)
 	public void getSubItems(int index, CreativeTabs tab, List list) {
 		for (int i = 0; i < SkillBase.skillsList.length; ++i)
-			if (getSkillFromDamage(i) != null) { list.add(new ItemStack(index, 1, i)); }
+			if (SkillBase.skillsList[i] instanceof SkillActive) { list.add(new ItemStack(index, 1, i)); }
 	}
 	
 	@Override
@@ -87,7 +90,7 @@ public class ItemSkillBook extends ItemBook
 	@Override
 	public ItemStack onItemRightClick(ItemStack stack, World world, EntityPlayer player)
 	{
-		if (!world.isRemote) { SkillInfo.get(player).addXp(100.0F, AttributeCode.AGI); }
+		if (!world.isRemote) { SkillInfo.get(player).addXp(100.0F, AttributeCode.AGI, XpSource.BOOK); }
 		//SkillInfo.get(player).grantSkill(SkillBase.ironFlesh.id, (byte) (SkillInfo.get(player).getSkillLevel(SkillBase.ironFlesh) + 1));
 		
 		SkillActive skill = getSkillFromStack(stack);
@@ -125,9 +128,9 @@ public class ItemSkillBook extends ItemBook
 	{
 		if (id < SkillBase.skillsList.length && SkillBase.skillsList[id] != null) {
 			if (SkillBase.skillsList[id] instanceof SkillActive) return (SkillActive) SkillBase.skillsList[id];
-			else System.out.println("WARNING: Skill book is for non-active skill " + SkillBase.skillsList[id].name);
+			else SkillsLog.warning(Category.ITEM, "Skill book is for non-active skill " + SkillBase.skillsList[id].name);
 		} else {
-			System.out.println("WARNING: Skill book's itemstack contains invalid id " + id);
+			SkillsLog.warning(Category.ITEM, "Skill book's itemstack contains invalid id " + id);
 		}
 		return null;
 	}
@@ -5,9 +5,10 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 
 import coolalias.skillsmod.SkillInfo;
+import coolalias.skillsmod.util.SkillsLog;
+import coolalias.skillsmod.util.SkillsLog.Category;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.nbt.NBTTagCompound;
-import net.minecraft.util.MathHelper;
 
 /**
  * 
@@ -23,8 +24,8 @@ import net.minecraft.util.MathHelper;
  */
 public final class Attribute extends SkillBase 
 {
-	/** Stores current xp and xp needed for next level */
-	private float xp = 0F, nextXp;
+	/** Stores current xp and xp needed for next level, in fixed-point units (see SkillAttribute.XP_UNIT) */
+	private long xp = 0L, nextXp;
 	
 	/**
 	 * Constructs immutable Attribute instance and registers it to the skill database
@@ -48,16 +49,17 @@ public final class Attribute extends SkillBase
 	@Override
 	public final void writeToNBT(NBTTagCompound compound) {
 		super.writeToNBT(compound);
-		compound.setFloat("xp", xp);
+		compound.setLong("xpUnits", xp);
 	}
 	
 	@Override
 	public final void readFromNBT(NBTTagCompound compound) {
 		super.readFromNBT(compound);
-		xp = compound.getFloat("xp");
+		// older saves stored xp as a float
+		xp = compound.hasKey("xpUnits") ? compound.getLong("xpUnits") : SkillAttribute.toXpUnits(compound.getFloat("xp"));
 		nextXp = calculateNextXp();
-		// TODO remove debug; integrate XP display into HUD
-		System.out.println(this.name + " XP from NBT: " + xp + "/" + nextXp);
+		// TODO integrate XP display into HUD
+		if (SkillsLog.isDebug(Category.XP)) { SkillsLog.debug(Category.XP, this.name + " XP from NBT: " + getXp() + "/" + getNextXp()); }
 	}
 	
 	@Override
@@ -70,51 +72,54 @@ public final class Attribute extends SkillBase
 	@Override
 	public final void writeToStream(DataOutputStream outputStream) throws IOException {
 		super.writeToStream(outputStream);
-		outputStream.writeFloat(xp);
+		outputStream.writeLong(xp);
 	}
 	
 	@Override
 	public final Attribute loadFromStream(byte id, DataInputStream inputStream) throws IOException {
 		Attribute skill = new Attribute(skillsList[id]);
 		skill.level = inputStream.readByte();
-		skill.xp = inputStream.readFloat();
+		skill.xp = inputStream.readLong();
 		skill.nextXp = skill.calculateNextXp();
 		return skill;
 	}
 	
-	/** Returns current XP amount for an instance of Attribute */
-	public final float getXp() { return xp; }
+	/** Returns current XP amount for an instance of Attribute, for display purposes */
+	public final float getXp() { return SkillAttribute.fromXpUnits(xp); }
 	
-	/** Returns current XP required for next level for an instance of Attribute */
-	public final float getNextXp() { return nextXp; }
+	/** Returns current XP required for next level for an instance of Attribute, for display purposes */
+	public final float getNextXp() { return SkillAttribute.fromXpUnits(nextXp); }
 	
-	/** Adds amount to XP, even if negative. Won't go below zero. */
-	private final void addXp(float amount) { xp = MathHelper.clamp_float(xp + amount, 0, Float.MAX_VALUE); }
+	/** Returns current XP amount in fixed-point units */
+	public final long getXpUnits() { return xp; }
 	
-	/** Calculates amount of XP needed to achieve the next level */
-	// TODO refine leveling algorithm
-	private final float calculateNextXp() { return (float) Math.pow(this.level, 2) + 1; }
+	/** Adds amount of XP units, even if negative. Won't go below zero. */
+	private final void addXp(long amount) { xp = SkillAttribute.addXpUnits(xp, amount); }
+	
+	/** Returns amount of XP units needed to achieve the next level; same table as SkillAttribute */
+	private final long calculateNextXp() { return SkillAttribute.nextXpUnits(level); }
 	
 	/**
-	 * Adds XP and increases skill level if applicable, as well as calling the player's SkillInfo levelUp method
-	 * @return true if skill level was incremented
+	 * Adds XP units and increases skill level if applicable, as well as calling the player's SkillInfo levelUp method
 	 */
-	public final void addXp(EntityPlayer player, float amount)
+	public final void addXp(EntityPlayer player, long amount)
 	{
 		addXp(amount);
-		// TODO remove debug / integrate messages into HUD display
-		System.out.println("Client? " + player.worldObj.isRemote + ", " + amount + " " + name + " xp gained! Current XP: " + xp + "/" + nextXp);
-		if (grantSkill(player)) { SkillInfo.get(player).levelUp(); }
+		// TODO integrate messages into HUD display
+		if (SkillsLog.isDebug(Category.XP)) {
+			SkillsLog.debug(Category.XP, "Client? " + player.worldObj.isRemote + ", " + amount + " " + name + " xp units gained! Current XP: " + getXp() + "/" + getNextXp());
+		}
+		while (grantSkill(player)) { SkillInfo.get(player).levelUp(this); }
 	}
 	
 	/**
-	 * Levels the Attribute and reduces Xp accordingly until no more levels can be gained
+	 * Increases the Attribute's level by one and reduces Xp accordingly; addXp grants one level at a time, so each level step posts its own event
 	 */
 	@Override
 	protected final void levelUp(EntityPlayer player, int targetLevel) {
-		float oldXp = nextXp;	
+		long oldXp = nextXp;
 		++level;
 		nextXp = calculateNextXp();
-		addXp(player, -oldXp);
+		addXp(-oldXp);
 	}
 }
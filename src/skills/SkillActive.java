@@ -7,7 +7,10 @@ import java.io.IOException;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.world.World;
+import coolalias.skillsmod.SkillEvents;
 import coolalias.skillsmod.SkillInfo;
+import coolalias.skillsmod.util.SkillsLog;
+import coolalias.skillsmod.util.SkillsLog.Category;
 
 /**
  * 
@@ -94,11 +97,12 @@ public abstract class SkillActive extends SkillBase
 			// TODO implement global cooldown differently
 			if (isGlobal) SkillInfo.get(player).setGlobalCooldown(cooldown);
 			setCooldown(player, cooldown);
+			if (isCooling()) { SkillEvents.postCooldownStart(SkillInfo.get(player), this, countdown); }
 			// TODO remove debug
-			player.addChatMessage(this.name + " used! Cooldown time set to " + getCooldown() + " ticks. World remote? " + player.worldObj.isRemote);
+			SkillInfo.get(player).getNotifier().addMessage(name, this.name + " used! Cooldown time set to " + getCooldown() + " ticks");
 			return true;
 		}
-		player.addChatMessage("Can't currently use " + name);
+		SkillInfo.get(player).getNotifier().addMessage(name, "Can't currently use " + name);
 		return false;
 	}
 	
@@ -106,7 +110,13 @@ public abstract class SkillActive extends SkillBase
 	public boolean canUse(EntityPlayer player) { return !isCooling(); }
 	
 	/** This method should be called from the player's update tick */
-	public void onUpdate(EntityPlayer player) { decrementCooldown(); }
+	public void onUpdate(EntityPlayer player)
+	{
+		if (isCooling()) {
+			decrementCooldown();
+			if (!isCooling()) { SkillEvents.postCooldownEnd(SkillInfo.get(player), this); }
+		}
+	}
 	
 	/** Returns time (in ticks) required before this skill may be used again */
 	public final int getCooldown() { return countdown; }
@@ -126,9 +136,8 @@ public abstract class SkillActive extends SkillBase
 	protected void decrementCooldown() {
 		if (isCooling()) {
 			--countdown;
-			// TODO remove debug
-			if (countdown % 20 == 0)
-				System.out.println(name + " cooling down, " + countdown / 20 + " seconds remaining.");
+			if (countdown % 20 == 0 && SkillsLog.isDebug(Category.SKILL))
+				SkillsLog.debug(Category.SKILL, name + " cooling down, " + countdown / 20 + " seconds remaining.");
 		}
 	}
 	
@@ -9,7 +9,6 @@ import net.minecraft.entity.ai.attributes.AttributeInstance;
 import net.minecraft.entity.ai.attributes.AttributeModifier;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.nbt.NBTTagCompound;
-import net.minecraft.util.MathHelper;
 import coolalias.skillsmod.SkillInfo;
 
 /**
@@ -33,8 +32,17 @@ public final class SkillAttribute extends SkillBase
 	/** Amount AttributeModifier will apply per skill Level */
 	private double amount;
 	
-	/** Stores current xp and xp needed for next level */
-	private float xp = 0F, nextXp;
+	/** Number of fixed-point units making up a single point of XP; all XP is stored as a long count of units */
+	public static final long XP_UNIT = 10000L;
+	
+	/** XP required to advance past each level, in fixed-point units, indexed by current level */
+	private static final long[] NEXT_XP = new long[MAX_ATTRIBUTE + 1];
+	
+	// TODO refine leveling algorithm
+	static { for (int i = 0; i < NEXT_XP.length; ++i) { NEXT_XP[i] = ((long) i * i + 1) * XP_UNIT; } }
+	
+	/** Stores current xp and xp needed for next level, in fixed-point units */
+	private long xp = 0L, nextXp;
 	
 	/** Constructs immutable SkillAttribute instance and registers it to the skill database */
 	protected SkillAttribute(String name, AttributeCode code) {
@@ -72,13 +80,14 @@ public final class SkillAttribute extends SkillBase
 	@Override
 	public final void writeToNBT(NBTTagCompound compound) {
 		super.writeToNBT(compound);
-		compound.setFloat("xp", xp);
+		compound.setLong("xpUnits", xp);
 	}
 	
 	@Override
 	public final void readFromNBT(NBTTagCompound compound) {
 		super.readFromNBT(compound);
-		xp = compound.getFloat("xp");
+		// older saves stored xp as a float
+		xp = compound.hasKey("xpUnits") ? compound.getLong("xpUnits") : toXpUnits(compound.getFloat("xp"));
 		nextXp = calculateNextXp();
 	}
 	
@@ -92,7 +101,7 @@ public final class SkillAttribute extends SkillBase
 	@Override
 	public final void writeToStream(DataOutputStream outputStream) throws IOException {
 		super.writeToStream(outputStream);
-		outputStream.writeFloat(xp);
+		outputStream.writeLong(xp);
 	}
 	
 	@Override
@@ -100,43 +109,62 @@ public final class SkillAttribute extends SkillBase
 	{
 		SkillAttribute skill = new SkillAttribute((SkillAttribute) skillsList[id]);
 		skill.level = inputStream.readByte();
-		skill.xp = inputStream.readFloat();
+		skill.xp = inputStream.readLong();
 		skill.nextXp = skill.calculateNextXp();
 		return skill;
 	}
 	
-	/** Returns current XP amount for an instance of SkillAttribute */
-	public final float getXp() { return xp; }
+	/** Converts an amount of XP into fixed-point XP units, rounding to the nearest unit */
+	public static final long toXpUnits(float amount) { return Math.round((double) amount * XP_UNIT); }
 	
-	/** Returns current XP required for next level for an instance of SkillAttribute */
-	public final float getNextXp() { return nextXp; }
+	/** Converts fixed-point XP units into XP, for display purposes only */
+	public static final float fromXpUnits(long units) { return (float) ((double) units / XP_UNIT); }
 	
-	/** Adds amount to XP, even if negative. Won't go below zero. */
-	private final void addXp(float amount) { if (level < maxLevel) xp = MathHelper.clamp_float(xp + amount, 0, Float.MAX_VALUE); }
+	/** Returns current XP amount for an instance of SkillAttribute, for display purposes */
+	public final float getXp() { return fromXpUnits(xp); }
 	
-	/** Calculates amount of XP needed to achieve the next level */
-	// TODO refine leveling algorithm
-	private final float calculateNextXp() { return (float) Math.pow(this.level, 2) + 1; }
+	/** Returns current XP required for next level for an instance of SkillAttribute, for display purposes */
+	public final float getNextXp() { return fromXpUnits(nextXp); }
+	
+	/** Returns current XP amount in fixed-point units */
+	public final long getXpUnits() { return xp; }
+	
+	/** Returns current XP required for next level in fixed-point units */
+	public final long getNextXpUnits() { return nextXp; }
+	
+	/** Adds amount of XP units, even if negative. Won't go below zero. */
+	private final void addXp(long amount) { if (level < maxLevel) xp = addXpUnits(xp, amount); }
+	
+	/** Returns amount of XP units needed to achieve the next level */
+	private final long calculateNextXp() { return nextXpUnits(level); }
+	
+	/** Returns amount of XP units needed to advance past the given level; levels past the table use the last entry */
+	static final long nextXpUnits(int level) { return NEXT_XP[Math.max(0, Math.min(level, NEXT_XP.length - 1))]; }
+	
+	/** Returns xp + amount, saturating at Long.MAX_VALUE instead of overflowing and never going below zero */
+	static final long addXpUnits(long xp, long amount) {
+		long sum = xp + amount;
+		return amount > 0L && sum < xp ? Long.MAX_VALUE : Math.max(sum, 0L);
+	}
 	
 	/**
-	 * Adds XP and increases skill level if applicable, as well as calling the player's SkillInfo levelUp method
-	 * @return true if skill level was incremented
+	 * Adds XP units and increases skill level if applicable, as well as calling the player's SkillInfo levelUp method
 	 */
-	public final void addXp(EntityPlayer player, float amount) {
+	public final void addXp(EntityPlayer player, long amount) {
 		addXp(amount);
-		if (grantSkill(player)) { SkillInfo.get(player).levelUp(); }
+		while (grantSkill(player)) { SkillInfo.get(player).levelUp(this); }
 	}
 	
 	/**
-	 * Levels the SkillAttribute and reduces Xp accordingly until no more levels can be gained
+	 * Increases the SkillAttribute's level by one and reduces Xp accordingly; addXp grants one level at a time, so each level step posts its own event
 	 */
 	@Override
 	protected final void levelUp(EntityPlayer player, int targetLevel)
 	{
-		float oldXp = nextXp;	
+		long oldXp = nextXp;
 		++level;
 		nextXp = calculateNextXp();
-		addXp(player, -oldXp);
+		addXp(-oldXp);
 		addAttributeModifiers(player);
 	}
 	
@@ -150,7 +178,7 @@ public final class SkillAttribute extends SkillBase
 			if (attributeinstance.getModifier(this.modifier.getID()) != null) { attributeinstance.removeModifier(this.modifier); }
 			AttributeModifier newModifier = (new AttributeModifier(this.modifier.getID(), this.modifier.getName(), level * this.amount, 0)).setSaved(true);
 			attributeinstance.applyModifier(newModifier);
-			player.addChatMessage("Current damage bonus: +" + newModifier.getAmount());
+			SkillInfo.get(player).getNotifier().addMessage(newModifier.getName(), newModifier.getName() + ": +" + newModifier.getAmount());
 		}
 	}
 }
@@ -17,6 +17,8 @@ import net.minecraft.util.ResourceLocation;
 import coolalias.skillsmod.SkillInfo;
 import coolalias.skillsmod.skills.active.SkillFireBlast;
 import coolalias.skillsmod.skills.passive.SkillIronFlesh;
+import coolalias.skillsmod.util.SkillsLog;
+import coolalias.skillsmod.util.SkillsLog.Category;
 
 /**
  * @author coolAlias
@@ -102,7 +104,7 @@ public abstract class SkillBase
 		this.maxLevel = maxLevel;
 		
 		if (register) {
-			if (skillsList[id] != null) { System.out.println("CONFLICT @ " + id + " skill id already occupied by " + skillsList[id].name + " while adding " + this.name); }
+			if (skillsList[id] != null) { SkillsLog.warning(Category.SKILL, "CONFLICT @ " + id + " skill id already occupied by " + skillsList[id].name + " while adding " + this.name); }
 			skillsList[id] = this;
 		}
 	}
@@ -165,7 +167,7 @@ public abstract class SkillBase
 	{
 		for (SkillBase skill : skillsList[this.id].prerequisites) {
 			if (SkillInfo.get(player).getSkillLevel(skill) < skill.level) {
-				player.addChatMessage(skill.name + " level " + skill.level + " is required before learning " + this.name);
+				SkillInfo.get(player).getNotifier().addMessage("prereq", skill.name + " level " + skill.level + " is required before learning " + this.name);
 				return false;
 			}
 		}
@@ -187,14 +189,13 @@ public abstract class SkillBase
 	public final boolean grantSkill(EntityPlayer player) { return grantSkill(player, level + 1); }
 	
 	/**
-	 * Returns true if skill's level has increased
+	 * Returns true if skill's level has increased; the change is reported to listeners by
+	 * SkillInfo once the player's skills are up to date, not here
 	 */
 	public final boolean grantSkill(EntityPlayer player, int targetLevel) {
 		if (targetLevel < level || targetLevel > maxLevel) { return false; }
 		byte oldLevel = level;
 		if (canIncreaseLevel(player, targetLevel)) {
-			// TODO remove debug / integrate into HUD
-			player.addChatMessage(name + " leveled up! Now level " + (level + 1));
 			levelUp(player, targetLevel);
 		}
 		return oldLevel < level;
@@ -3,6 +3,7 @@ package coolalias.skillsmod.skills.active;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.world.World;
 import coolalias.skillsmod.entity.skill.EntityFireBlast;
+import coolalias.skillsmod.entity.skill.FireBlastPool;
 import coolalias.skillsmod.skills.SkillActive;
 
 /**
@@ -34,8 +35,8 @@ public class SkillFireBlast extends SkillActive
 	public boolean activate(World world, EntityPlayer player)
 	{
 		if (!world.isRemote) {
-			EntityFireBlast fireball = new EntityFireBlast(world, player).setLevel(level);
-            world.spawnEntityInWorld(fireball);
+			EntityFireBlast fireball = FireBlastPool.get(world).acquire(player, level);
+			world.spawnEntityInWorld(fireball);
 		}
 		
 		return super.activate(world, player);
@@ -0,0 +1,181 @@
+package coolalias.skillsmod.skills.area;
+
+import java.util.List;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.util.AxisAlignedBB;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.World;
+import coolalias.skillsmod.entity.EntitySpatialHash;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Area affected by an area-of-effect skill: a sphere around a point, a cone or a line (a
+ * cylinder of the given radius) from an origin along a direction. All targets in the area are
+ * found with a single query of the world's EntitySpatialHash over the shape's bounds, and an
+ * entity counts as inside if the center of its bounding box is.
+ * 
+ * Blocks inside the area can be visited with getMinX / getMaxX etc. and contains, usually to
+ * fill a BlockEditBatch.
+ *
+ */
+public abstract class AreaShape
+{
+	/** Bounds of the shape */
+	protected double minX, minY, minZ, maxX, maxY, maxZ;
+	
+	/**
+	 * Returns a sphere of the given radius around the point
+	 */
+	public static AreaShape sphere(double x, double y, double z, double radius) { return new Sphere(x, y, z, radius); }
+	
+	/**
+	 * Returns a cone from the origin along the direction (need not be normalized), extending
+	 * 'length' blocks with the given half-angle in degrees, which must be above 0 and below 90
+	 */
+	public static AreaShape cone(double x, double y, double z, double dirX, double dirY, double dirZ, double length, float angle) {
+		return new Cone(x, y, z, dirX, dirY, dirZ, length, angle);
+	}
+	
+	/**
+	 * Returns a line from the origin along the direction (need not be normalized), extending
+	 * 'length' blocks and including everything within 'radius' of it
+	 */
+	public static AreaShape line(double x, double y, double z, double dirX, double dirY, double dirZ, double length, double radius) {
+		return new Line(x, y, z, dirX, dirY, dirZ, length, radius);
+	}
+	
+	/** Returns true if the point is inside the shape */
+	public abstract boolean contains(double x, double y, double z);
+	
+	/** Returns true if the center of the entity's bounding box is inside the shape */
+	public boolean contains(Entity entity)
+	{
+		AxisAlignedBB bb = entity.boundingBox;
+		return contains((bb.minX + bb.maxX) * 0.5D, (bb.minY + bb.maxY) * 0.5D, (bb.minZ + bb.maxZ) * 0.5D);
+	}
+	
+	/** Returns true if the center of the block at these coordinates is inside the shape */
+	public boolean containsBlock(int x, int y, int z) { return contains(x + 0.5D, y + 0.5D, z + 0.5D); }
+	
+	/** Block coordinate bounds of the shape, inclusive */
+	public int getMinX() { return MathHelper.floor_double(minX); }
+	public int getMinY() { return MathHelper.floor_double(minY); }
+	public int getMinZ() { return MathHelper.floor_double(minZ); }
+	public int getMaxX() { return MathHelper.floor_double(maxX); }
+	public int getMaxY() { return MathHelper.floor_double(maxY); }
+	public int getMaxZ() { return MathHelper.floor_double(maxZ); }
+	
+	/**
+	 * Fills the caller's list with all living entities other than 'exclude' inside the shape,
+	 * using one broadphase query; the list is cleared first and returned for convenience
+	 */
+	public List<EntityLivingBase> getTargets(World world, Entity exclude, List<EntityLivingBase> targets)
+	{
+		targets.clear();
+		List<Entity> list = EntitySpatialHash.get(world).getEntitiesInBox(exclude, minX, minY, minZ, maxX, maxY, maxZ);
+		for (int i = 0; i < list.size(); ++i) {
+			Entity entity = list.get(i);
+			if (entity instanceof EntityLivingBase && contains(entity)) { targets.add((EntityLivingBase) entity); }
+		}
+		return targets;
+	}
+	
+	protected final void setBounds(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.maxZ = maxZ;
+	}
+	
+	private static final class Sphere extends AreaShape
+	{
+		private final double x, y, z, radiusSq;
+		
+		private Sphere(double x, double y, double z, double radius) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.radiusSq = radius * radius;
+			setBounds(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+		}
+		
+		@Override
+		public boolean contains(double px, double py, double pz) {
+			double dx = px - x, dy = py - y, dz = pz - z;
+			return dx * dx + dy * dy + dz * dz <= radiusSq;
+		}
+	}
+	
+	/**
+	 * Base for shapes defined by an origin, a normalized direction and a length
+	 */
+	private static abstract class Directed extends AreaShape
+	{
+		protected final double x, y, z, dirX, dirY, dirZ, length;
+		
+		private Directed(double x, double y, double z, double dirX, double dirY, double dirZ, double length, double radius) {
+			double norm = Math.sqrt(dirX * dirX + dirY * dirY + dirZ * dirZ);
+			if (norm == 0.0D) { throw new IllegalArgumentException("Area direction must not be zero"); }
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.dirX = dirX / norm;
+			this.dirY = dirY / norm;
+			this.dirZ = dirZ / norm;
+			this.length = length;
+			// everything is within 'radius' of the segment from origin to end
+			double endX = x + this.dirX * length, endY = y + this.dirY * length, endZ = z + this.dirZ * length;
+			setBounds(Math.min(x, endX) - radius, Math.min(y, endY) - radius, Math.min(z, endZ) - radius,
+					Math.max(x, endX) + radius, Math.max(y, endY) + radius, Math.max(z, endZ) + radius);
+		}
+		
+		@Override
+		public final boolean contains(double px, double py, double pz) {
+			double dx = px - x, dy = py - y, dz = pz - z;
+			double along = dx * dirX + dy * dirY + dz * dirZ;
+			return along >= 0.0D && along <= length && contains(along, dx * dx + dy * dy + dz * dz - along * along);
+		}
+		
+		/** Returns true if a point this far along the direction and at this squared distance from the axis is inside */
+		protected abstract boolean contains(double along, double distSq);
+	}
+	
+	private static final class Cone extends Directed
+	{
+		private final double tanSq;
+		
+		private Cone(double x, double y, double z, double dirX, double dirY, double dirZ, double length, float angle) {
+			super(x, y, z, dirX, dirY, dirZ, length, length * Math.tan(Math.toRadians(checkAngle(angle))));
+			double tan = Math.tan(Math.toRadians(angle));
+			this.tanSq = tan * tan;
+		}
+		
+		/** Returns the angle if it is a valid half-angle; tan is negative or infinite from 90 degrees up */
+		private static float checkAngle(float angle) {
+			if (!(angle > 0.0F && angle < 90.0F)) { throw new IllegalArgumentException("Cone half-angle must be above 0 and below 90 degrees, was " + angle); }
+			return angle;
+		}
+		
+		@Override
+		protected boolean contains(double along, double distSq) { return distSq <= along * along * tanSq; }
+	}
+	
+	private static final class Line extends Directed
+	{
+		private final double radiusSq;
+		
+		private Line(double x, double y, double z, double dirX, double dirY, double dirZ, double length, double radius) {
+			super(x, y, z, dirX, dirY, dirZ, length, radius);
+			this.radiusSq = radius * radius;
+		}
+		
+		@Override
+		protected boolean contains(double along, double distSq) { return distSq <= radiusSq; }
+	}
+}
@@ -0,0 +1,194 @@
+package coolalias.skillsmod.skills.area;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import net.minecraft.block.Block;
+import net.minecraft.world.EnumSkyBlock;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ * 
+ * @author coolAlias
+ *
+ * Collects block changes made by an area-of-effect skill and applies them all at once.
+ * 
+ * Calling World.setBlock for every block means a separate chunk lookup, lighting update and
+ * round of neighbor notifications each time. Instead, edits are grouped by chunk and set
+ * directly in the chunk; afterwards each changed block is marked for update (the player chunk
+ * map already merges these into one packet per chunk), lighting is only recalculated where the
+ * light emitted or blocked actually changed, and each neighboring block outside the batch is
+ * notified only once.
+ * 
+ * Server side only; batches can be reused after calling apply.
+ *
+ */
+public class BlockEditBatch
+{
+	private final World world;
+	
+	/** Pending edits */
+	private int[] posX = new int[64], posY = new int[64], posZ = new int[64], blockIds = new int[64], metas = new int[64];
+	
+	/** For each edit, the index of the next edit queued in the same chunk, or -1 */
+	private int[] next = new int[64];
+	
+	/** For each edit, whether it was applied and whether its lighting needs updating */
+	private byte[] results = new byte[64];
+	
+	private int size;
+	
+	/** Chunk coordinates touched by this batch and the index of the first and last edit in each */
+	private int[] chunkX = new int[8], chunkZ = new int[8], chunkHeads = new int[8], chunkTails = new int[8];
+	private int chunkCount;
+	
+	private static final byte APPLIED = 1, LIGHT_CHANGED = 2, OPACITY_CHANGED = 4;
+	
+	public BlockEditBatch(World world) { this.world = world; }
+	
+	/** Returns the number of edits waiting to be applied */
+	public int size() { return size; }
+	
+	/**
+	 * Queues setting the block at x/y/z to the given block id and metadata; the block isn't
+	 * actually changed until apply is called. Edits are applied in the order queued, so the
+	 * last edit of a position wins.
+	 */
+	public void setBlock(int x, int y, int z, int blockId, int meta)
+	{
+		if (y < 0 || y >= 256) { return; }
+		if (size == posX.length) { grow(); }
+		posX[size] = x;
+		posY[size] = y;
+		posZ[size] = z;
+		blockIds[size] = blockId;
+		metas[size] = meta;
+		int slot = getChunkSlot(x >> 4, z >> 4);
+		next[size] = -1;
+		if (chunkHeads[slot] < 0) { chunkHeads[slot] = size; }
+		else { next[chunkTails[slot]] = size; }
+		chunkTails[slot] = size++;
+	}
+	
+	/** Queues setting the block at x/y/z to the given block id with metadata 0 */
+	public void setBlock(int x, int y, int z, int blockId) { setBlock(x, y, z, blockId, 0); }
+	
+	/**
+	 * Applies all queued edits and clears the batch; returns the number of blocks changed
+	 */
+	public int apply()
+	{
+		if (world.isRemote) {
+			clear();
+			return 0;
+		}
+		int changed = 0;
+		Arrays.fill(results, 0, size, (byte) 0);
+		for (int c = 0; c < chunkCount; ++c)
+		{
+			// same check as World.setBlock: never load or generate chunks for a skill effect
+			if (!world.getChunkProvider().chunkExists(chunkX[c], chunkZ[c])) { continue; }
+			Chunk chunk = world.getChunkFromChunkCoords(chunkX[c], chunkZ[c]);
+			for (int i = chunkHeads[c]; i >= 0; i = next[i]) {
+				results[i] = setInChunk(chunk, i);
+				if (results[i] != 0) { ++changed; }
+			}
+		}
+		
+		for (int i = 0; i < size; ++i)
+		{
+			if (results[i] == 0) { continue; }
+			world.markBlockForUpdate(posX[i], posY[i], posZ[i]);
+			if ((results[i] & OPACITY_CHANGED) != 0) {
+				world.updateAllLightTypes(posX[i], posY[i], posZ[i]);
+			} else if ((results[i] & LIGHT_CHANGED) != 0) {
+				world.updateLightByType(EnumSkyBlock.Block, posX[i], posY[i], posZ[i]);
+			}
+		}
+		
+		if (changed > 0) { notifyNeighbors(); }
+		clear();
+		return changed;
+	}
+	
+	/** Discards all queued edits */
+	public void clear()
+	{
+		size = 0;
+		chunkCount = 0;
+	}
+	
+	/**
+	 * Sets edit i directly in the chunk; returns the APPLIED / LIGHT_CHANGED / OPACITY_CHANGED
+	 * flags, or 0 if the block was already as requested
+	 */
+	private byte setInChunk(Chunk chunk, int i)
+	{
+		int x = posX[i] & 15, y = posY[i], z = posZ[i] & 15;
+		int oldId = chunk.getBlockID(x, y, z);
+		if (!chunk.setBlockIDWithMetadata(x, y, z, blockIds[i], metas[i])) { return 0; }
+		byte flags = APPLIED;
+		if (Block.lightValue[oldId] != Block.lightValue[blockIds[i]]) { flags |= LIGHT_CHANGED; }
+		if (Block.lightOpacity[oldId] != Block.lightOpacity[blockIds[i]]) { flags |= OPACITY_CHANGED; }
+		return flags;
+	}
+	
+	/**
+	 * Notifies each block next to a changed block once, skipping blocks changed by this batch
+	 */
+	private void notifyNeighbors()
+	{
+		Set<Long> edited = new HashSet<Long>(size * 2);
+		for (int i = 0; i < size; ++i) {
+			if (results[i] != 0) { edited.add(key(posX[i], posY[i], posZ[i])); }
+		}
+		Set<Long> notified = new HashSet<Long>(size * 4);
+		for (int i = 0; i < size; ++i)
+		{
+			if (results[i] == 0) { continue; }
+			for (int side = 0; side < 6; ++side) {
+				int x = posX[i] + (side == 4 ? -1 : side == 5 ? 1 : 0);
+				int y = posY[i] + (side == 0 ? -1 : side == 1 ? 1 : 0);
+				int z = posZ[i] + (side == 2 ? -1 : side == 3 ? 1 : 0);
+				Long key = key(x, y, z);
+				if (!edited.contains(key) && notified.add(key)) { world.notifyBlockOfNeighborChange(x, y, z, blockIds[i]); }
+			}
+		}
+	}
+	
+	private static Long key(int x, int y, int z) {
+		return Long.valueOf(((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (long) (y & 0xFFF));
+	}
+	
+	/** Returns the index of the chunk at these chunk coordinates, adding it if not already present */
+	private int getChunkSlot(int cx, int cz)
+	{
+		for (int c = chunkCount - 1; c >= 0; --c) {
+			if (chunkX[c] == cx && chunkZ[c] == cz) { return c; }
+		}
+		if (chunkCount == chunkX.length) {
+			chunkX = Arrays.copyOf(chunkX, chunkCount * 2);
+			chunkZ = Arrays.copyOf(chunkZ, chunkCount * 2);
+			chunkHeads = Arrays.copyOf(chunkHeads, chunkCount * 2);
+			chunkTails = Arrays.copyOf(chunkTails, chunkCount * 2);
+		}
+		chunkX[chunkCount] = cx;
+		chunkZ[chunkCount] = cz;
+		chunkHeads[chunkCount] = -1;
+		return chunkCount++;
+	}
+	
+	private void grow()
+	{
+		int capacity = posX.length * 2;
+		posX = Arrays.copyOf(posX, capacity);
+		posY = Arrays.copyOf(posY, capacity);
+		posZ = Arrays.copyOf(posZ, capacity);
+		blockIds = Arrays.copyOf(blockIds, capacity);
+		metas = Arrays.copyOf(metas, capacity);
+		next = Arrays.copyOf(next, capacity);
+		results = Arrays.copyOf(results, capacity);
+	}
+}
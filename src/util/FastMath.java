@@ -0,0 +1,42 @@
+package coolalias.skillsmod.util;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Table-based approximations of expensive java.lang.Math functions for code that runs every
+ * tick but doesn't need full precision, such as entity rotations used only for rendering.
+ *
+ */
+public final class FastMath
+{
+	/** Number of intervals in the arctangent table, covering ratios from 0 to 1 */
+	private static final int ATAN_SIZE = 1024;
+
+	/** Arctangent of i / ATAN_SIZE, for i from 0 to ATAN_SIZE inclusive */
+	private static final double[] ATAN = new double[ATAN_SIZE + 1];
+
+	static { for (int i = 0; i <= ATAN_SIZE; ++i) { ATAN[i] = Math.atan((double) i / ATAN_SIZE); } }
+
+	private FastMath() {}
+
+	/**
+	 * Approximates Math.atan2(y, x) by linear interpolation in a table of arctangents after
+	 * reducing to the first octant; the absolute error is below 1.0E-6 radians
+	 */
+	public static double atan2(double y, double x)
+	{
+		double ax = Math.abs(x), ay = Math.abs(y);
+		if (ax == 0.0D && ay == 0.0D) { return 0.0D; }
+		boolean steep = ay > ax;
+		double index = (steep ? ax / ay : ay / ax) * ATAN_SIZE;
+		int i = (int) index;
+		double angle = i < ATAN_SIZE ? ATAN[i] + (ATAN[i + 1] - ATAN[i]) * (index - i) : ATAN[ATAN_SIZE];
+		if (steep) { angle = Math.PI / 2.0D - angle; }
+		if (x < 0.0D) { angle = Math.PI - angle; }
+		return y < 0.0D ? -angle : angle;
+	}
+
+	/** Same as atan2, but returns the angle in degrees */
+	public static float atan2Degrees(double y, double x) { return (float) (atan2(y, x) * 180.0D / Math.PI); }
+}
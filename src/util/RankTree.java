@@ -0,0 +1,167 @@
+package coolalias.skillsmod.util;
+
+import java.util.Random;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Order-statistic tree of (key, score) entries, ordered by score from highest to lowest and
+ * then by key. Implemented as a treap with subtree sizes, so insert, remove, rank and select
+ * all take O(log n) expected time.
+ *
+ * Each key should be present at most once; to change an entry's score, remove it with its old
+ * score and insert it again. Not thread-safe.
+ *
+ */
+public class RankTree
+{
+	private static final class Node
+	{
+		private final String key;
+		private final int score, priority;
+		private int size = 1;
+		private Node left, right;
+
+		private Node(String key, int score, int priority) {
+			this.key = key;
+			this.score = score;
+			this.priority = priority;
+		}
+	}
+
+	private final Random rand = new Random();
+
+	private Node root;
+
+	/** Returns the number of entries */
+	public int size() { return size(root); }
+
+	/** Removes all entries */
+	public void clear() { root = null; }
+
+	/** Adds the entry; the key must not already be present */
+	public void insert(String key, int score) { root = insert(root, new Node(key, score, rand.nextInt())); }
+
+	/** Removes the entry with this key and score; returns false if there was no such entry */
+	public boolean remove(String key, int score)
+	{
+		int before = size();
+		root = remove(root, key, score);
+		return size() < before;
+	}
+
+	/**
+	 * Returns the number of entries ranked before the entry with this key and score, i.e. its
+	 * zero-based position, whether or not the entry itself is present
+	 */
+	public int rank(String key, int score)
+	{
+		int rank = 0;
+		for (Node node = root; node != null;) {
+			if (compare(key, score, node) <= 0) {
+				node = node.left;
+			} else {
+				rank += size(node.left) + 1;
+				node = node.right;
+			}
+		}
+		return rank;
+	}
+
+	/** Returns the key of the entry at the zero-based position */
+	public String getKey(int index) { return select(index).key; }
+
+	/** Returns the score of the entry at the zero-based position */
+	public int getScore(int index) { return select(index).score; }
+
+	private Node select(int index)
+	{
+		if (index < 0 || index >= size()) { throw new IndexOutOfBoundsException("Index " + index + ", size " + size()); }
+		Node node = root;
+		while (true) {
+			int left = size(node.left);
+			if (index < left) {
+				node = node.left;
+			} else if (index == left) {
+				return node;
+			} else {
+				index -= left + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	private static Node insert(Node node, Node entry)
+	{
+		if (node == null) { return entry; }
+		if (compare(entry.key, entry.score, node) < 0) {
+			node.left = insert(node.left, entry);
+			if (node.left.priority > node.priority) { node = rotateRight(node); }
+		} else {
+			node.right = insert(node.right, entry);
+			if (node.right.priority > node.priority) { node = rotateLeft(node); }
+		}
+		update(node);
+		return node;
+	}
+
+	private static Node remove(Node node, String key, int score)
+	{
+		if (node == null) { return null; }
+		int cmp = compare(key, score, node);
+		if (cmp < 0) {
+			node.left = remove(node.left, key, score);
+		} else if (cmp > 0) {
+			node.right = remove(node.right, key, score);
+		} else {
+			return merge(node.left, node.right);
+		}
+		update(node);
+		return node;
+	}
+
+	/** Joins two treaps where every entry in 'left' is ranked before every entry in 'right' */
+	private static Node merge(Node left, Node right)
+	{
+		if (left == null) { return right; }
+		if (right == null) { return left; }
+		if (left.priority > right.priority) {
+			left.right = merge(left.right, right);
+			update(left);
+			return left;
+		}
+		right.left = merge(left, right.left);
+		update(right);
+		return right;
+	}
+
+	private static Node rotateRight(Node node)
+	{
+		Node left = node.left;
+		node.left = left.right;
+		left.right = node;
+		update(node);
+		update(left);
+		return left;
+	}
+
+	private static Node rotateLeft(Node node)
+	{
+		Node right = node.right;
+		node.right = right.left;
+		right.left = node;
+		update(node);
+		update(right);
+		return right;
+	}
+
+	private static void update(Node node) { node.size = size(node.left) + size(node.right) + 1; }
+
+	private static int size(Node node) { return node == null ? 0 : node.size; }
+
+	/** Orders by score, highest first, then by key */
+	private static int compare(String key, int score, Node node) {
+		return score != node.score ? (score > node.score ? -1 : 1) : key.compareTo(node.key);
+	}
+}
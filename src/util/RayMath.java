@@ -0,0 +1,163 @@
+package coolalias.skillsmod.util;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Primitive-only ray casting helpers, so that hot collision code doesn't need to allocate
+ * Vec3, AxisAlignedBB or MovingObjectPosition objects for every candidate it tests.
+ *
+ */
+public final class RayMath
+{
+	/** Same cut-off used by Vec3.getIntermediateWithXValue and friends for near-parallel segments */
+	private static final double PARALLEL_EPSILON = 1.0000000116860974E-7D;
+
+	private RayMath() {}
+
+	/**
+	 * Returns the fraction (0 to 1) along the segment from (x, y, z) to (x + dx, y + dy, z + dz)
+	 * at which it meets a face of the box, or -1 if it doesn't.
+	 * 
+	 * Matches AxisAlignedBB.calculateIntercept exactly: the nearest face crossing is returned,
+	 * so a segment starting inside the box reports where it leaves it, and one lying entirely
+	 * inside the box does not hit at all.
+	 */
+	public static double intersectBox(double x, double y, double z, double dx, double dy, double dz,
+			double minX, double minY, double minZ, double maxX, double maxY, double maxZ)
+	{
+		double best = -1.0D;
+		if (dx * dx >= PARALLEL_EPSILON) {
+			best = nearest(best, (minX - x) / dx, y, z, dy, dz, minY, minZ, maxY, maxZ);
+			best = nearest(best, (maxX - x) / dx, y, z, dy, dz, minY, minZ, maxY, maxZ);
+		}
+		if (dy * dy >= PARALLEL_EPSILON) {
+			best = nearest(best, (minY - y) / dy, x, z, dx, dz, minX, minZ, maxX, maxZ);
+			best = nearest(best, (maxY - y) / dy, x, z, dx, dz, minX, minZ, maxX, maxZ);
+		}
+		if (dz * dz >= PARALLEL_EPSILON) {
+			best = nearest(best, (minZ - z) / dz, x, y, dx, dy, minX, minY, maxX, maxY);
+			best = nearest(best, (maxZ - z) / dz, x, y, dx, dy, minX, minY, maxX, maxY);
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the fraction (0 to 1) along the segment from (x, y, z) to (x + dx, y + dy, z + dz)
+	 * at which a sphere of the given radius moving along it first touches the box, or -1 if it
+	 * never does; returns 0 if the sphere already overlaps the box at the start.
+	 * 
+	 * Equivalent to testing the segment against the box grown by the radius with rounded edges
+	 * and corners, i.e. the union of the box grown along each single axis, a cylinder along each
+	 * edge and a sphere at each corner, so the result is exact without sub-stepping.
+	 */
+	public static double intersectSphereBox(double x, double y, double z, double dx, double dy, double dz, double radius,
+			double minX, double minY, double minZ, double maxX, double maxY, double maxZ)
+	{
+		double r = radius;
+		// everything lies within the box grown by the radius on all axes, so most misses stop here
+		if (enterBox(x, y, z, dx, dy, dz, minX - r, minY - r, minZ - r, maxX + r, maxY + r, maxZ + r) < 0.0D) { return -1.0D; }
+		double best = earliest(-1.0D, enterBox(x, y, z, dx, dy, dz, minX - r, minY, minZ, maxX + r, maxY, maxZ));
+		best = earliest(best, enterBox(x, y, z, dx, dy, dz, minX, minY - r, minZ, maxX, maxY + r, maxZ));
+		best = earliest(best, enterBox(x, y, z, dx, dy, dz, minX, minY, minZ - r, maxX, maxY, maxZ + r));
+		if (best == 0.0D) { return best; }
+		for (int i = 0; i < 4; ++i) {
+			double a = (i & 1) == 0 ? minY : maxY, b = (i & 2) == 0 ? minZ : maxZ;
+			best = earliest(best, enterCylinder(y - a, z - b, x, dy, dz, dx, r, minX, maxX));
+			a = (i & 1) == 0 ? minX : maxX;
+			best = earliest(best, enterCylinder(x - a, z - b, y, dx, dz, dy, r, minY, maxY));
+			b = (i & 2) == 0 ? minY : maxY;
+			best = earliest(best, enterCylinder(x - a, y - b, z, dx, dy, dz, r, minZ, maxZ));
+		}
+		for (int i = 0; i < 8; ++i) {
+			best = earliest(best, enterSphere(x - ((i & 1) == 0 ? minX : maxX), y - ((i & 2) == 0 ? minY : maxY),
+					z - ((i & 4) == 0 ? minZ : maxZ), dx, dy, dz, r));
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the fraction along the segment at which it enters the box, 0 if it starts
+	 * inside, or -1 if it misses
+	 */
+	private static double enterBox(double x, double y, double z, double dx, double dy, double dz,
+			double minX, double minY, double minZ, double maxX, double maxY, double maxZ)
+	{
+		double enter = 0.0D, exit = 1.0D;
+		if (dx == 0.0D) {
+			if (x < minX || x > maxX) { return -1.0D; }
+		} else {
+			double t0 = (minX - x) / dx, t1 = (maxX - x) / dx;
+			enter = Math.max(enter, Math.min(t0, t1));
+			exit = Math.min(exit, Math.max(t0, t1));
+		}
+		if (dy == 0.0D) {
+			if (y < minY || y > maxY) { return -1.0D; }
+		} else {
+			double t0 = (minY - y) / dy, t1 = (maxY - y) / dy;
+			enter = Math.max(enter, Math.min(t0, t1));
+			exit = Math.min(exit, Math.max(t0, t1));
+		}
+		if (dz == 0.0D) {
+			if (z < minZ || z > maxZ) { return -1.0D; }
+		} else {
+			double t0 = (minZ - z) / dz, t1 = (maxZ - z) / dz;
+			enter = Math.max(enter, Math.min(t0, t1));
+			exit = Math.min(exit, Math.max(t0, t1));
+		}
+		return enter <= exit ? enter : -1.0D;
+	}
+
+	/**
+	 * Returns the fraction along the segment at which it enters an axis-aligned cylinder, given
+	 * the start relative to the cylinder's axis (a, b), the start along the axis, the matching
+	 * deltas, the radius and the extent of the cylinder along its axis
+	 */
+	private static double enterCylinder(double a, double b, double p, double da, double db, double dp, double r, double min, double max)
+	{
+		double qa = da * da + db * db;
+		double qc = a * a + b * b - r * r;
+		if (qc <= 0.0D) { return (p >= min && p <= max) ? 0.0D : -1.0D; }
+		// parallel to the axis and outside: can only enter through the ends, covered by the other shapes
+		if (qa == 0.0D) { return -1.0D; }
+		double qb = a * da + b * db;
+		double disc = qb * qb - qa * qc;
+		if (qb >= 0.0D || disc < 0.0D) { return -1.0D; }
+		double t = (-qb - Math.sqrt(disc)) / qa;
+		if (t > 1.0D) { return -1.0D; }
+		double at = p + dp * t;
+		return (at >= min && at <= max) ? t : -1.0D;
+	}
+
+	/**
+	 * Returns the fraction along the segment at which it enters a sphere, given the start
+	 * relative to the sphere's center
+	 */
+	private static double enterSphere(double x, double y, double z, double dx, double dy, double dz, double r)
+	{
+		double qc = x * x + y * y + z * z - r * r;
+		if (qc <= 0.0D) { return 0.0D; }
+		double qb = x * dx + y * dy + z * dz;
+		double qa = dx * dx + dy * dy + dz * dz;
+		double disc = qb * qb - qa * qc;
+		if (qb >= 0.0D || disc < 0.0D) { return -1.0D; }
+		double t = (-qb - Math.sqrt(disc)) / qa;
+		return t <= 1.0D ? t : -1.0D;
+	}
+
+	/** Returns the smaller of two fractions, ignoring either one if negative (a miss) */
+	private static double earliest(double best, double t) {
+		return t < 0.0D ? best : (best < 0.0D || t < best) ? t : best;
+	}
+
+	/**
+	 * Returns t if it is on the segment, the crossing point lies within the face (bounds
+	 * inclusive) and t is nearer than the current best; otherwise returns the current best
+	 */
+	private static double nearest(double best, double t, double a, double b, double da, double db, double minA, double minB, double maxA, double maxB)
+	{
+		if (t < 0.0D || t > 1.0D || (best >= 0.0D && t >= best)) { return best; }
+		double pa = a + da * t, pb = b + db * t;
+		return (pa >= minA && pa <= maxA && pb >= minB && pb <= maxB) ? t : best;
+	}
+}
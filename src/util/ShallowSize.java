@@ -0,0 +1,52 @@
+package coolalias.skillsmod.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Estimates of object and array sizes from their declared fields and lengths, for monitoring.
+ *
+ * Assumes the common layout of a 64-bit HotSpot JVM with compressed references: a 12 byte object
+ * header, 16 byte array header, 4 byte references and sizes rounded up to 8 bytes. Fields are
+ * summed without the padding the JVM may add between them, and nothing referenced is included.
+ *
+ */
+public final class ShallowSize
+{
+	private static final int OBJECT_HEADER = 12, ARRAY_HEADER = 16, REFERENCE = 4;
+
+	/** Size of a hash map entry: hash, key, value and next */
+	public static final int HASH_ENTRY = align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+
+	private ShallowSize() {}
+
+	/** Returns the size of an instance of the class, counting every instance field it declares or inherits */
+	public static int of(Class<?> type)
+	{
+		int size = OBJECT_HEADER;
+		for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) { size += sizeOf(field.getType()); }
+			}
+		}
+		return align(size);
+	}
+
+	/** Returns the size of an array with the given component type and length */
+	public static int ofArray(Class<?> componentType, int length) { return align(ARRAY_HEADER + sizeOf(componentType) * length); }
+
+	/** Returns the number of bytes a field or array element of this type takes */
+	private static int sizeOf(Class<?> type)
+	{
+		if (!type.isPrimitive()) { return REFERENCE; }
+		if (type == long.class || type == double.class) { return 8; }
+		if (type == int.class || type == float.class) { return 4; }
+		if (type == short.class || type == char.class) { return 2; }
+		return 1;
+	}
+
+	private static int align(int size) { return (size + 7) & ~7; }
+}
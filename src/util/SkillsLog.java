@@ -0,0 +1,179 @@
+package coolalias.skillsmod.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Lightweight logging facade used in place of System.out on hot paths.
+ *
+ * Each Category has its own Level, set with the system property 'skillsmod.log.<category>'
+ * (e.g. -Dskillsmod.log.xp=DEBUG) or 'skillsmod.log' for all categories; default is WARNING.
+ *
+ * Callers should check isEnabled (or isDebug) before building a message so that no string
+ * concatenation happens when the level is disabled. Messages that would otherwise be logged every
+ * tick can be thinned out with a Sampler kept at the call site. Enabled messages are placed in a lock-free
+ * ring buffer and written to the console by a background daemon thread, so the calling thread
+ * never blocks on console I/O. If the buffer is full, the message is dropped and counted.
+ * While the buffer is empty the writer thread sleeps until a producer wakes it.
+ *
+ */
+public final class SkillsLog
+{
+	public static enum Category { SKILL, XP, PACKET, EVENT, ITEM };
+
+	public static enum Level { OFF, SEVERE, WARNING, INFO, DEBUG };
+
+	/** Size of the ring buffer; must be a power of two */
+	private static final int CAPACITY = 1024, MASK = CAPACITY - 1;
+
+	/** Current level for each category, indexed by Category ordinal; may be changed from any thread by setLevel */
+	private static final AtomicReferenceArray<Level> levels = new AtomicReferenceArray<Level>(Category.values().length);
+
+	private static final AtomicReferenceArray<String> buffer = new AtomicReferenceArray<String>(CAPACITY);
+
+	/** Next slot to be claimed by a producer */
+	private static final AtomicLong head = new AtomicLong();
+
+	/** Next slot to be read by the consumer thread */
+	private static volatile long tail = 0L;
+
+	/** Number of messages dropped because the buffer was full */
+	private static final AtomicLong dropped = new AtomicLong();
+
+	/** Longest time the writer sleeps without being woken, as a safeguard against a missed wake up */
+	private static final long MAX_PARK_NANOS = 1000000000L;
+
+	private static final Thread writer;
+
+	/** True while the writer is about to sleep or sleeping; producers wake it when set */
+	private static volatile boolean sleeping = false;
+
+	static {
+		Level defaultLevel = parseLevel(System.getProperty("skillsmod.log"), Level.WARNING);
+		for (Category category : Category.values()) {
+			levels.set(category.ordinal(), parseLevel(System.getProperty("skillsmod.log." + category.name().toLowerCase()), defaultLevel));
+		}
+
+		writer = new Thread("SkillsMod Log Writer") {
+			@Override
+			public void run() {
+				while (true) {
+					if (drain()) { continue; }
+					sleeping = true;
+					// re-check after publishing the flag, so a message logged meanwhile is never left waiting
+					if (tail == head.get()) { LockSupport.parkNanos(MAX_PARK_NANOS); }
+					sleeping = false;
+				}
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread("SkillsMod Log Flush") {
+			@Override
+			public void run() { drain(); }
+		});
+	}
+
+	private SkillsLog() {}
+
+	private static Level parseLevel(String value, Level defaultLevel) {
+		if (value != null) {
+			try {
+				return Level.valueOf(value.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				System.out.println("[SkillsMod][WARNING] Invalid log level " + value);
+			}
+		}
+		return defaultLevel;
+	}
+
+	/** Sets the logging level for a category at run-time */
+	public static void setLevel(Category category, Level level) { levels.set(category.ordinal(), level); }
+
+	/** Returns the current logging level for a category */
+	public static Level getLevel(Category category) { return levels.get(category.ordinal()); }
+
+	/** Returns true if messages of the given level will be logged for this category */
+	public static boolean isEnabled(Category category, Level level) {
+		return level != Level.OFF && level.ordinal() <= levels.get(category.ordinal()).ordinal();
+	}
+
+	/** Shortcut for isEnabled(category, Level.DEBUG) */
+	public static boolean isDebug(Category category) { return isEnabled(category, Level.DEBUG); }
+
+	/**
+	 * Call counter for sampling a single log statement; keep one per call site, e.g. in a static
+	 * field next to the statement, so that other statements don't affect which calls are sampled.
+	 * Not synchronized: races only affect which call gets sampled.
+	 */
+	public static final class Sampler
+	{
+		private final int rate;
+		private int count;
+
+		/** Creates a sampler that lets one in every 'rate' calls through */
+		public Sampler(int rate) { this.rate = rate; }
+
+		/** Returns true once every 'rate' calls; use along with isEnabled */
+		public boolean sample() {
+			if (++count >= rate) {
+				count = 0;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/** Returns the number of messages dropped so far due to a full buffer */
+	public static long getDropped() { return dropped.get(); }
+
+	public static void severe(Category category, String message) { log(category, Level.SEVERE, message); }
+
+	public static void warning(Category category, String message) { log(category, Level.WARNING, message); }
+
+	public static void info(Category category, String message) { log(category, Level.INFO, message); }
+
+	public static void debug(Category category, String message) { log(category, Level.DEBUG, message); }
+
+	/**
+	 * Queues the message for output if the level is enabled for this category; never blocks
+	 */
+	public static void log(Category category, Level level, String message)
+	{
+		if (!isEnabled(category, level)) { return; }
+		long slot;
+		do {
+			slot = head.get();
+			if (slot - tail >= CAPACITY) {
+				dropped.incrementAndGet();
+				return;
+			}
+		} while (!head.compareAndSet(slot, slot + 1));
+		buffer.set((int) (slot & MASK), "[SkillsMod][" + category + "][" + level + "] " + message);
+		if (sleeping) { LockSupport.unpark(writer); }
+	}
+
+	/**
+	 * Writes all currently available messages to the console; returns false if there was nothing to write
+	 */
+	private static synchronized boolean drain()
+	{
+		boolean wrote = false;
+		while (tail < head.get()) {
+			int index = (int) (tail & MASK);
+			String message = buffer.get(index);
+			// slot has been claimed but not yet filled in
+			if (message == null) { break; }
+			buffer.set(index, null);
+			++tail;
+			System.out.println(message);
+			wrote = true;
+		}
+		return wrote;
+	}
+}
@@ -0,0 +1,183 @@
+package coolalias.skillsmod.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import coolalias.skillsmod.util.SkillsLog.Category;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Low-overhead timing of the mod's event handlers, packet handlers and per-tick player update.
+ *
+ * Callers wrap a section with start and end. Every call is counted; while the profiler is
+ * disabled only one call in SAMPLE_RATE per section is timed, so the cost of leaving it in
+ * place is a counter increment. Durations go into preallocated power-of-two histograms
+ * (bucket i holds times below 2^i ns), so recording never allocates.
+ *
+ * Enable at start-up with -Dskillsmod.profile=true or at run-time with '/skills profile on'.
+ * While enabled, a report is written every 'skillsmod.profile.interval' server ticks (default
+ * 6000) to 'skillsmod.profile.file' (default skillsmod-profile.txt), replacing the previous one.
+ *
+ */
+public final class SkillsProfiler
+{
+	public static enum Section {
+		ARROW_LOOSE, ATTACKED, HURT, DEATH, JUMP, BREAK_BLOCK, LIVING_UPDATE, ENTITY_CONSTRUCTING, WORLD_LOAD, WORLD_SAVE, WORLD_UNLOAD, ENTITY_JOIN_WORLD,
+		PACKET_SYNC_PLAYER_INFO, PACKET_OPEN_SERVER_GUI, PACKET_ADD_XP, PACKET_UPDATE_ATTRIBUTE, PACKET_UNKNOWN,
+		SKILL_INFO_UPDATE
+	};
+
+	/** Returned by start when the call is not timed */
+	public static final long NOT_TIMED = Long.MIN_VALUE;
+
+	/** While disabled, one call in this many is timed */
+	public static final int SAMPLE_RATE = 64;
+
+	/** Number of histogram buckets per section; the last bucket holds everything above about a second */
+	private static final int BUCKETS = 31;
+
+	private static final int SECTIONS = Section.values().length;
+
+	/** Per section: calls, calls timed, total and maximum time in nanoseconds */
+	private static final AtomicLongArray calls = new AtomicLongArray(SECTIONS), timed = new AtomicLongArray(SECTIONS);
+	private static final AtomicLongArray totalNanos = new AtomicLongArray(SECTIONS), maxNanos = new AtomicLongArray(SECTIONS);
+
+	/** Histograms of all sections, BUCKETS entries each */
+	private static final AtomicLongArray histograms = new AtomicLongArray(SECTIONS * BUCKETS);
+
+	/** Per-section call counters used for sampling; races only affect which call gets timed */
+	private static final int[] sampleCounters = new int[SECTIONS];
+
+	private static volatile boolean enabled = Boolean.getBoolean("skillsmod.profile");
+
+	private static final int dumpInterval = Integer.getInteger("skillsmod.profile.interval", 6000);
+
+	private static final File dumpFile = new File(System.getProperty("skillsmod.profile.file", "skillsmod-profile.txt"));
+
+	private static int ticksSinceDump = 0;
+
+	/** Time at which recording started or was last reset */
+	private static volatile long resetTime = System.currentTimeMillis();
+
+	private SkillsProfiler() {}
+
+	/** Returns true if every call is being timed */
+	public static boolean isEnabled() { return enabled; }
+
+	/** Enables or disables timing of every call; sampling continues while disabled */
+	public static void setEnabled(boolean value) { enabled = value; }
+
+	/**
+	 * Marks the start of a section; pass the result to end once the section completes
+	 */
+	public static long start(Section section)
+	{
+		int i = section.ordinal();
+		calls.incrementAndGet(i);
+		if (!enabled) {
+			if (++sampleCounters[i] < SAMPLE_RATE) { return NOT_TIMED; }
+			sampleCounters[i] = 0;
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of a section started with start; does nothing if the call was not timed
+	 */
+	public static void end(Section section, long start)
+	{
+		if (start == NOT_TIMED) { return; }
+		long nanos = Math.max(System.nanoTime() - start, 0L);
+		int i = section.ordinal();
+		timed.incrementAndGet(i);
+		totalNanos.addAndGet(i, nanos);
+		histograms.incrementAndGet(i * BUCKETS + Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1));
+		long max;
+		while (nanos > (max = maxNanos.get(i)) && !maxNanos.compareAndSet(i, max, nanos)) {}
+	}
+
+	/** Clears all recorded data */
+	public static void reset()
+	{
+		for (int i = 0; i < SECTIONS; ++i) {
+			calls.set(i, 0L);
+			timed.set(i, 0L);
+			totalNanos.set(i, 0L);
+			maxNanos.set(i, 0L);
+		}
+		for (int i = 0; i < histograms.length(); ++i) { histograms.set(i, 0L); }
+		resetTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Called at the end of each server tick; writes the dump file every dumpInterval ticks while enabled
+	 */
+	public static void onServerTick()
+	{
+		if (!enabled || dumpInterval <= 0 || ++ticksSinceDump < dumpInterval) { return; }
+		ticksSinceDump = 0;
+		writeReport(dumpFile);
+	}
+
+	/**
+	 * Writes the current report to the file, replacing it; returns false if the file could not be written
+	 */
+	public static boolean writeReport(File file)
+	{
+		PrintWriter out = null;
+		try {
+			out = new PrintWriter(new FileWriter(file));
+			List<String> lines = getReport();
+			for (int i = 0; i < lines.size(); ++i) { out.println(lines.get(i)); }
+			return !out.checkError();
+		} catch (IOException e) {
+			SkillsLog.severe(Category.EVENT, "Unable to write profile to " + file + ": " + e);
+			return false;
+		} finally {
+			if (out != null) { out.close(); }
+		}
+	}
+
+	/** Returns the file periodic reports are written to */
+	public static File getDumpFile() { return dumpFile; }
+
+	/**
+	 * Returns one line per section that has been called: calls, calls timed, then mean, median,
+	 * 99th percentile and maximum time in microseconds; percentiles are bucket upper bounds
+	 */
+	public static List<String> getReport()
+	{
+		List<String> lines = new ArrayList<String>(SECTIONS + 1);
+		lines.add(String.format("%-24s %10s %9s %9s %9s %9s %9s  (%s, %ds)", "section", "calls", "timed", "mean us", "p50 us", "p99 us", "max us",
+				enabled ? "all calls" : "sampled 1/" + SAMPLE_RATE, (System.currentTimeMillis() - resetTime) / 1000L));
+		for (Section section : Section.values())
+		{
+			int i = section.ordinal();
+			long count = calls.get(i), samples = timed.get(i);
+			if (count == 0L) { continue; }
+			double mean = samples > 0 ? totalNanos.get(i) / (double) samples / 1000.0D : 0.0D;
+			lines.add(String.format("%-24s %10d %9d %9.2f %9.2f %9.2f %9.2f", section.name().toLowerCase(), count, samples, mean,
+					percentile(i, samples, 0.50D) / 1000.0D, percentile(i, samples, 0.99D) / 1000.0D, maxNanos.get(i) / 1000.0D));
+		}
+		return lines;
+	}
+
+	/** Returns the upper bound in nanoseconds of the bucket containing the given fraction of timed calls */
+	private static long percentile(int section, long samples, double fraction)
+	{
+		if (samples == 0L) { return 0L; }
+		long target = (long) Math.ceil(samples * fraction), seen = 0L;
+		for (int b = 0; b < BUCKETS; ++b) {
+			seen += histograms.get(section * BUCKETS + b);
+			if (seen >= target) { return b == BUCKETS - 1 ? maxNanos.get(section) : (1L << b) - 1L; }
+		}
+		return maxNanos.get(section);
+	}
+}
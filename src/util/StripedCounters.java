@@ -0,0 +1,64 @@
+package coolalias.skillsmod.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * @author coolAlias
+ *
+ * Fixed set of lock-free counters for statistics that are written far more often than read.
+ *
+ * Each thread adds to one of several stripes, chosen by thread id, so threads updating the
+ * same counter rarely contend on the same cache line; reading a counter sums all stripes.
+ * Stripes are padded to a multiple of 64 bytes. Sums taken while counters are being updated
+ * are not atomic snapshots, which is fine for monitoring.
+ *
+ */
+public final class StripedCounters
+{
+	/** Number of longs in a 64 byte cache line */
+	private static final int LINE = 8;
+
+	/** Number of stripes; a power of two no smaller than the number of processors, up to 64 */
+	private static final int STRIPES, MASK;
+
+	static {
+		int stripes = 1;
+		while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 64) { stripes <<= 1; }
+		STRIPES = stripes;
+		MASK = stripes - 1;
+	}
+
+	/** Counters are stored stripe by stripe, each stripe 'stride' longs long */
+	private final AtomicLongArray cells;
+
+	private final int size, stride;
+
+	/** Creates 'size' counters, all starting at zero */
+	public StripedCounters(int size)
+	{
+		this.size = size;
+		this.stride = (size + LINE - 1) / LINE * LINE;
+		// one extra line before the first stripe keeps it off the array header's line
+		this.cells = new AtomicLongArray(LINE + STRIPES * stride);
+	}
+
+	/** Returns the number of counters */
+	public int size() { return size; }
+
+	/** Adds one to the counter */
+	public void increment(int counter) { add(counter, 1L); }
+
+	/** Adds the amount to the counter */
+	public void add(int counter, long amount) {
+		cells.addAndGet(LINE + ((int) Thread.currentThread().getId() & MASK) * stride + counter, amount);
+	}
+
+	/** Returns the current total of the counter */
+	public long sum(int counter)
+	{
+		long sum = 0L;
+		for (int i = LINE + counter; i < cells.length(); i += stride) { sum += cells.get(i); }
+		return sum;
+	}
+}